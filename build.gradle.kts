@@ -2,6 +2,7 @@ plugins {
     java
     application
     id("com.gradleup.shadow") version "9.0.0-rc1"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "net.minestom.jam"
@@ -16,9 +17,82 @@ repositories {
 
 dependencies {
     implementation("net.minestom:minestom:2025.07.11-1.21.7")
+
+    // The Java classes come with the unclassified artifact; the classified ones only add a native
     implementation("com.github.stephengold:Libbulletjme-Windows64:22.0.1")
+
+    // Natives for every host we run on; NativeLoader picks the right one. The multithreaded build by default, pass
+    // -PbulletFlavor=SpRelease for the single threaded one
+    val bulletFlavor = findProperty("bulletFlavor")?.toString() ?: "SpMtRelease"
+    runtimeOnly("com.github.stephengold:Libbulletjme-Linux64:22.0.1:$bulletFlavor")
+    runtimeOnly("com.github.stephengold:Libbulletjme-Windows64:22.0.1:$bulletFlavor")
+
+    testImplementation(platform("org.junit:junit-bom:5.13.4"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+// Headless load test harness in src/loadtest/java; run with ./gradlew loadTest --args="<clients> <seconds> <disconnect chance>"
+val loadtest: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+}
+
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs the server in-process and connects simulated clients to it."
+    classpath = loadtest.runtimeClasspath
+    mainClass = "net.minestom.jam.loadtest.LoadTest"
 }
 
 tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
-}
\ No newline at end of file
+}
+
+// Benchmarks live in src/jmh/java; run with ./gradlew jmh
+jmh {
+    jmhVersion = "1.37"
+    profilers = listOf("gc")
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+}
+
+tasks.register<JavaExec>("convertGameMap") {
+    group = "application"
+    description = "Precompiles ./game into the binary world format loaded by each match."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "net.minestom.jam.instance.BinaryWorld"
+    args("game")
+}
+
+// AppCDS archive for the shadow jar: starts the server once, exits as soon as it's ready and dumps every class it loaded.
+// Run the jar with -XX:SharedArchiveFile=build/libs/tower.jsa to map them instead of loading them again
+tasks.register<Exec>("cdsArchive") {
+    group = "distribution"
+    description = "Records the classes loaded during startup into an AppCDS archive for the shadow jar."
+
+    val jar = tasks.shadowJar.flatMap { it.archiveFile }
+    val archive = layout.buildDirectory.file("libs/tower.jsa")
+    val launcher = javaToolchains.launcherFor(java.toolchain)
+
+    dependsOn(tasks.shadowJar)
+    inputs.file(jar)
+    outputs.file(archive)
+
+    doFirst {
+        commandLine(
+            launcher.get().executablePath.asFile.absolutePath,
+            "-XX:ArchiveClassesAtExit=${archive.get().asFile.absolutePath}",
+            "-Dtower.exitWhenReady=true",
+            "-Dtower.offline=true",
+            "-Dtower.port=0",
+            "-Dtower.metrics.port=-1",
+            "-jar", jar.get().asFile.absolutePath
+        )
+    }
+}
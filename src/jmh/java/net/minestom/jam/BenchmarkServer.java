@@ -0,0 +1,49 @@
+package net.minestom.jam;
+
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.instance.InstanceContainer;
+import net.minestom.server.instance.block.Block;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Shared setup for the benchmarks: natives and an initialized (but not started) server.
+ */
+final class BenchmarkServer {
+
+    private static boolean initialized = false;
+
+    private BenchmarkServer() {
+    }
+
+    static synchronized void init() {
+        if (initialized) return;
+
+        try {
+            NativeLoader.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        MinecraftServer.init();
+        initialized = true;
+    }
+
+    /**
+     * Creates an empty instance with a small stone floor, and loads the chunks around the origin.
+     */
+    static @NotNull InstanceContainer createInstance() {
+        init();
+
+        InstanceContainer instance = MinecraftServer.getInstanceManager().createInstanceContainer();
+        instance.setGenerator(unit -> unit.modifier().fillHeight(0, 1, Block.STONE));
+
+        for (int x = -2; x <= 2; x++) {
+            for (int z = -2; z <= 2; z++) {
+                instance.loadChunk(x, z).join();
+            }
+        }
+        return instance;
+    }
+}
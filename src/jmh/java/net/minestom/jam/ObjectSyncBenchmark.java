@@ -0,0 +1,55 @@
+package net.minestom.jam;
+
+import com.jme3.math.Vector3f;
+import net.minestom.jam.objects.BlockRigidBody;
+import net.minestom.jam.objects.MinecraftPhysicsObject;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.coordinate.Vec;
+import net.minestom.server.instance.InstanceContainer;
+import net.minestom.server.instance.block.Block;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The display entity sync in {@link MinecraftPhysicsObject#update()}, without stepping the simulation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ObjectSyncBenchmark {
+
+    @Param({"100", "1000"})
+    public int bodies;
+
+    private InstanceContainer instance;
+    private MinecraftPhysics physics;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        instance = BenchmarkServer.createInstance();
+        physics = new MinecraftPhysics(instance);
+
+        int side = (int) Math.ceil(Math.sqrt(bodies));
+        for (int i = 0; i < bodies; i++) {
+            var position = new Vector3f((i % side) * 1.5f - 16f, 5f, (i / side) * 1.5f - 16f);
+            var block = new BlockRigidBody(physics, position, new Vec(0.5, 0.5, 0.5), 1.0f, true, Block.DIAMOND_BLOCK);
+
+            // The chunks are loaded, so the entity is spawned synchronously
+            block.setInstance();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        physics.destroy();
+        MinecraftServer.getInstanceManager().unregisterInstance(instance);
+    }
+
+    @Benchmark
+    public void update() {
+        for (MinecraftPhysicsObject object : physics.getObjects()) {
+            object.update();
+        }
+    }
+}
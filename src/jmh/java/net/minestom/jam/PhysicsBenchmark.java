@@ -0,0 +1,69 @@
+package net.minestom.jam;
+
+import com.jme3.bullet.collision.shapes.BoxCollisionShape;
+import com.jme3.bullet.objects.PhysicsRigidBody;
+import com.jme3.math.Vector3f;
+import net.minestom.jam.objects.BlockRigidBody;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.coordinate.Vec;
+import net.minestom.server.instance.InstanceContainer;
+import net.minestom.server.instance.block.Block;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MinecraftPhysics#update(float)} with a grid of boxes, either resting on a floor (and asleep) or falling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PhysicsBenchmark {
+
+    private static final float DELTA = 1 / 60f;
+
+    @Param({"100", "1000"})
+    public int bodies;
+
+    @Param({"rest", "fall"})
+    public String state;
+
+    private InstanceContainer instance;
+    private MinecraftPhysics physics;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        instance = BenchmarkServer.createInstance();
+        physics = new MinecraftPhysics(instance);
+
+        boolean falling = state.equals("fall");
+
+        if (!falling) {
+            var floor = new PhysicsRigidBody(new BoxCollisionShape(500f, 0.5f, 500f), PhysicsRigidBody.massForStatic);
+            floor.setPhysicsLocation(new Vector3f(0, -0.5f, 0));
+            physics.add(floor);
+        }
+
+        int side = (int) Math.ceil(Math.sqrt(bodies));
+        for (int i = 0; i < bodies; i++) {
+            var position = new Vector3f((i % side) * 1.5f, falling ? 1000f : 0.5f, (i / side) * 1.5f);
+            new BlockRigidBody(physics, position, new Vec(0.5, 0.5, 0.5), 1.0f, false, Block.DIAMOND_BLOCK);
+        }
+
+        // Let resting bodies settle and fall asleep
+        if (!falling) {
+            for (int i = 0; i < 300; i++) physics.update(DELTA);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        physics.destroy();
+        MinecraftServer.getInstanceManager().unregisterInstance(instance);
+    }
+
+    @Benchmark
+    public void update() {
+        physics.update(DELTA);
+    }
+}
@@ -0,0 +1,68 @@
+package net.minestom.jam;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link Queue.Manager} bookkeeping, without any messages.
+ * Queues never fill up here, so no game is started. The manager is detached from the server, so no tick listener or
+ * repeating task runs alongside.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueueBenchmark {
+
+    private static final int PLAYERS = 1024;
+    private static final int INVITES = 1024;
+
+    private Queue.Manager manager;
+    private UUID[] players;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        BenchmarkServer.init();
+
+        manager = Queue.Manager.detached();
+        players = new UUID[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) players[i] = UUID.randomUUID();
+        next = 0;
+    }
+
+    private UUID nextPlayer() {
+        return players[next++ & (PLAYERS - 1)];
+    }
+
+    @Benchmark
+    public Queue joinAndDequeuePublic() {
+        UUID player = nextPlayer();
+        manager.joinPublicQueue(player);
+        return manager.dequeue(player);
+    }
+
+    @Benchmark
+    public Queue createAndDequeuePrivate() {
+        UUID player = nextPlayer();
+        manager.createPrivateQueue(player);
+        return manager.dequeue(player);
+    }
+
+    /**
+     * Records {@value #INVITES} invites on a fresh manager. Every pair is new, so each invite is recorded rather than
+     * rejected as already pending; invites never expire within a benchmark, so starting over keeps their map from
+     * growing without bound.
+     */
+    @Benchmark
+    @OperationsPerInvocation(INVITES)
+    public int invite() {
+        final Queue.Manager invites = Queue.Manager.detached();
+        int recorded = 0;
+        for (int i = 0; i < INVITES; i++) {
+            if (invites.invite(new UUID(i, 0), new UUID(i, 1))) recorded++;
+        }
+        return recorded;
+    }
+}
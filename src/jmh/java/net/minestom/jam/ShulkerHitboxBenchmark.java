@@ -0,0 +1,88 @@
+package net.minestom.jam;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import net.minestom.jam.objects.BlockRigidBody;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.coordinate.Vec;
+import net.minestom.server.entity.Entity;
+import net.minestom.server.instance.InstanceContainer;
+import net.minestom.server.instance.block.Block;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ShulkerHitboxes#generateAndSpawnShulkers} and the voxelization and cube cover behind it, for boxes of varying
+ * sizes and rotations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShulkerHitboxBenchmark {
+
+    @Param({"0.5", "1", "2"})
+    public float halfExtent;
+
+    @Param({"0", "45"})
+    public float rotation;
+
+    private InstanceContainer instance;
+    private MinecraftPhysics physics;
+    private BlockRigidBody block;
+    private List<ShulkerHitboxes.IntVec> points;
+
+    /**
+     * The entities spawned by one call, removed after it so the instance doesn't fill up with shulkers.
+     */
+    @State(Scope.Thread)
+    public static class Spawned {
+        final List<Entity> entities = new ArrayList<>();
+
+        @TearDown(Level.Invocation)
+        public void remove() {
+            entities.forEach(Entity::remove);
+            entities.clear();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        instance = BenchmarkServer.createInstance();
+        physics = new MinecraftPhysics(instance);
+
+        block = new BlockRigidBody(physics, new Vector3f(0, 5, 0), new Vec(halfExtent), 1.0f, false, Block.DIAMOND_BLOCK);
+
+        float radians = (float) Math.toRadians(rotation);
+        block.getCollisionObject().setPhysicsRotation(new Quaternion().fromAngles(radians, radians, 0));
+
+        points = ShulkerHitboxes.voxelize(physics, block.getCollisionObject());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        physics.destroy();
+        MinecraftServer.getInstanceManager().unregisterInstance(instance);
+    }
+
+    @Benchmark
+    public List<ShulkerHitboxes.IntVec> voxelize() {
+        return ShulkerHitboxes.voxelize(physics, block.getCollisionObject());
+    }
+
+    @Benchmark
+    public List<ShulkerHitboxes.Cube> cover() {
+        return ShulkerHitboxes.cover(points, ShulkerHitboxes.TOLERANCE, ShulkerHitboxes.MAX_CUBE_SIZE);
+    }
+
+    /**
+     * The whole path a game takes when showing hitboxes. The chunks are loaded, so the entities spawn synchronously.
+     */
+    @Benchmark
+    public List<Entity> generateAndSpawnShulkers(Spawned spawned) {
+        spawned.entities.addAll(ShulkerHitboxes.generateAndSpawnShulkers(physics, block));
+        return spawned.entities;
+    }
+}
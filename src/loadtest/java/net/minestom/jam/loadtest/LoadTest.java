@@ -0,0 +1,136 @@
+package net.minestom.jam.loadtest;
+
+import net.minestom.jam.Main;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts the server in-process on loopback and connects simulated clients to it.
+ * <br>
+ * Every client joins the lobby, then either runs {@code /queue} or forms a party of two with {@code /party} and
+ * {@code /accept}. Once queued, clients keep toggling sneak (which spawns physics blocks in a game) and occasionally
+ * disconnect and come back as a new player. A CSV timeline is printed every second, followed by a summary.
+ * <br>
+ * Arguments (all optional): {@code <clients> <seconds> <disconnect chance per second>}, e.g. {@code 200 120 0.01}.
+ * Run with {@code ./gradlew loadTest --args="200 120 0.01"}.
+ */
+public final class LoadTest {
+
+    private static final int PORT = 25599;
+
+    private final int clients;
+    private final long seconds;
+    private final double disconnectChance;
+
+    private final InetSocketAddress address = new InetSocketAddress("127.0.0.1", PORT);
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger nextName = new AtomicInteger();
+
+    private LoadTest(int clients, long seconds, double disconnectChance) {
+        this.clients = clients;
+        this.seconds = seconds;
+        this.disconnectChance = disconnectChance;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int clients = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 60;
+        final double disconnectChance = args.length > 2 ? Double.parseDouble(args[2]) : 0.01;
+
+        System.setProperty("tower.offline", "true");
+        System.setProperty("tower.address", "127.0.0.1");
+        System.setProperty("tower.port", String.valueOf(PORT));
+        Main.main(new String[0]);
+
+        new LoadTest(clients, seconds, disconnectChance).run();
+        System.exit(0);
+    }
+
+    private void run() throws InterruptedException {
+        final ServerProbe probe = new ServerProbe();
+        probe.install();
+
+        // Clients are connected in pairs, so that parties can be formed
+        for (int i = 0; i < clients / 2; i++) {
+            threads.submit(this::runPair);
+            Thread.sleep(20); // Ramp up instead of connecting everyone in the same tick
+        }
+
+        probe.printHeader(System.out);
+        for (long second = 1; second <= seconds; second++) {
+            Thread.sleep(1000);
+            probe.printTimeline(System.out, second);
+        }
+
+        probe.printSummary(System.out, clients, seconds);
+        threads.shutdownNow();
+    }
+
+    /**
+     * Runs two clients for the whole test, replacing them whenever one disconnects.
+     */
+    private void runPair() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try (SimulatedClient first = connect(); SimulatedClient second = connect()) {
+                awaitPlaying(first);
+                awaitPlaying(second);
+                Thread.sleep(500); // Let both spawn in the lobby
+
+                if (ThreadLocalRandom.current().nextBoolean()) {
+                    first.command("queue");
+                    second.command("queue");
+                } else {
+                    first.command("party " + second.username());
+                    Thread.sleep(200);
+                    second.command("accept " + first.username());
+                }
+
+                play(first, second);
+            } catch (IOException e) {
+                sleepQuietly(1000); // The server may be overloaded; back off and reconnect
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void play(@NotNull SimulatedClient first, @NotNull SimulatedClient second) throws IOException, InterruptedException {
+        final double chancePerStep = disconnectChance / 4;
+
+        while (first.isPlaying() && second.isPlaying()) {
+            first.toggleSneak();
+            second.toggleSneak();
+            Thread.sleep(250);
+
+            if (ThreadLocalRandom.current().nextDouble() < chancePerStep) return;
+        }
+    }
+
+    private @NotNull SimulatedClient connect() throws IOException {
+        final SimulatedClient client = new SimulatedClient("bot" + nextName.incrementAndGet(), address);
+        threads.submit(client::readLoop);
+        return client;
+    }
+
+    private static void awaitPlaying(@NotNull SimulatedClient client) throws InterruptedException, IOException {
+        for (int i = 0; i < 200; i++) {
+            if (client.isPlaying()) return;
+            Thread.sleep(50);
+        }
+        throw new IOException(client.username() + " did not finish logging in");
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package net.minestom.jam.loadtest;
+
+import net.minestom.jam.Game;
+import net.minestom.jam.PhysicsResources;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.event.server.ServerTickMonitorEvent;
+import net.minestom.server.timer.TaskSchedule;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.PrintStream;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+
+/**
+ * Records server-side measurements while the load test runs, on the server's own tick thread.
+ */
+final class ServerProbe {
+
+    /**
+     * A growable list of samples with percentile lookups.
+     */
+    static final class Samples {
+        private long[] values = new long[1024];
+        private int size = 0;
+
+        synchronized void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        synchronized long percentile(double percentile) {
+            if (size == 0) return 0;
+
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(size - 1, Math.ceil(percentile / 100 * size) - 1)];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void clear() {
+            size = 0;
+        }
+    }
+
+    private final Samples tickMicros = new Samples();
+    private final Samples recentTickMicros = new Samples();
+    private final Samples physicsStepMicros = new Samples();
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final BufferPoolMXBean directMemory = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+            .filter(pool -> pool.getName().equals("direct"))
+            .findFirst().orElse(null);
+
+    void install() {
+        MinecraftServer.getGlobalEventHandler().addListener(ServerTickMonitorEvent.class, event -> {
+            final long micros = (long) (event.getTickMonitor().getTickTime() * 1000);
+            tickMicros.add(micros);
+            recentTickMicros.add(micros);
+        });
+
+        MinecraftServer.getSchedulerManager().buildTask(() -> {
+            for (Game game : Game.GAMES) {
+                physicsStepMicros.add(game.getPhysics().getLastStepNanos() / 1000);
+            }
+        }).repeat(TaskSchedule.tick(1)).schedule();
+    }
+
+    void printHeader(@NotNull PrintStream out) {
+        out.println("seconds,players,games,heap_mb,direct_mb,committed_mb,bodies,shapes,tick_p50_us,tick_p99_us");
+    }
+
+    /**
+     * Prints one CSV line; tick percentiles only cover the ticks since the previous line.
+     */
+    void printTimeline(@NotNull PrintStream out, long seconds) {
+        final var counts = PhysicsResources.globalCounts();
+        final long committed = ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os
+                ? os.getCommittedVirtualMemorySize() : 0;
+
+        out.printf("%d,%d,%d,%d,%d,%d,%d,%d,%d,%d%n",
+                seconds,
+                MinecraftServer.getConnectionManager().getOnlinePlayerCount(),
+                Game.GAMES.size(),
+                memory.getHeapMemoryUsage().getUsed() >> 20,
+                directMemory != null ? directMemory.getMemoryUsed() >> 20 : 0,
+                committed >> 20,
+                counts.bodies(),
+                counts.shapes(),
+                recentTickMicros.percentile(50),
+                recentTickMicros.percentile(99));
+        recentTickMicros.clear();
+    }
+
+    void printSummary(@NotNull PrintStream out, int players, long seconds) {
+        out.println();
+        out.printf("Ticks: %d, p50 %d us, p90 %d us, p99 %d us, max %d us%n", tickMicros.size(),
+                tickMicros.percentile(50), tickMicros.percentile(90), tickMicros.percentile(99), tickMicros.percentile(100));
+        out.printf("Physics steps: %d, p50 %d us, p90 %d us, p99 %d us, max %d us%n", physicsStepMicros.size(),
+                physicsStepMicros.percentile(50), physicsStepMicros.percentile(90), physicsStepMicros.percentile(99), physicsStepMicros.percentile(100));
+
+        final double perPlayerSecond = Math.max(1, players) * (double) Math.max(1, seconds);
+        out.printf("Per player per second: %.1f packets / %.1f KiB received, %.1f packets / %.1f KiB sent%n",
+                SimulatedClient.PACKETS_RECEIVED.sum() / perPlayerSecond,
+                SimulatedClient.BYTES_RECEIVED.sum() / perPlayerSecond / 1024,
+                SimulatedClient.PACKETS_SENT.sum() / perPlayerSecond,
+                SimulatedClient.BYTES_SENT.sum() / perPlayerSecond / 1024);
+    }
+}
@@ -0,0 +1,249 @@
+package net.minestom.jam.loadtest;
+
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.network.ConnectionState;
+import net.minestom.server.network.NetworkBuffer;
+import net.minestom.server.network.packet.PacketParser;
+import net.minestom.server.network.packet.PacketRegistry;
+import net.minestom.server.network.packet.PacketVanilla;
+import net.minestom.server.network.packet.client.ClientPacket;
+import net.minestom.server.network.packet.client.common.ClientKeepAlivePacket;
+import net.minestom.server.network.packet.client.common.ClientPongPacket;
+import net.minestom.server.network.packet.client.configuration.ClientFinishConfigurationPacket;
+import net.minestom.server.network.packet.client.configuration.ClientSelectKnownPacksPacket;
+import net.minestom.server.network.packet.client.handshake.ClientHandshakePacket;
+import net.minestom.server.network.packet.client.login.ClientLoginAcknowledgedPacket;
+import net.minestom.server.network.packet.client.login.ClientLoginStartPacket;
+import net.minestom.server.network.packet.client.play.ClientCommandChatPacket;
+import net.minestom.server.network.packet.client.play.ClientInputPacket;
+import net.minestom.server.network.packet.client.play.ClientTeleportConfirmPacket;
+import net.minestom.server.network.packet.server.ServerPacket;
+import net.minestom.server.network.packet.server.common.KeepAlivePacket;
+import net.minestom.server.network.packet.server.common.PingPacket;
+import net.minestom.server.network.packet.server.configuration.FinishConfigurationPacket;
+import net.minestom.server.network.packet.server.configuration.SelectKnownPacksPacket;
+import net.minestom.server.network.packet.server.login.LoginSuccessPacket;
+import net.minestom.server.network.packet.server.login.SetCompressionPacket;
+import net.minestom.server.network.packet.server.play.PlayerPositionAndLookPacket;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A headless client that speaks just enough of the protocol to log in, answer keep alives and teleports, run
+ * commands and sneak. Clientbound packets are only decoded when the client has to react to them.
+ * <br>
+ * Packet IDs and serializers come from Minestom's own registries, so the client always matches the server version.
+ */
+final class SimulatedClient implements Closeable {
+
+    private static final PacketParser<ClientPacket> CLIENT = PacketVanilla.CLIENT_PACKET_PARSER;
+    private static final PacketParser<ServerPacket> SERVER = PacketVanilla.SERVER_PACKET_PARSER;
+
+    private static final int SET_COMPRESSION = SERVER.login().packetInfo(SetCompressionPacket.class).id();
+    private static final int LOGIN_SUCCESS = SERVER.login().packetInfo(LoginSuccessPacket.class).id();
+    private static final int CONFIG_KEEP_ALIVE = SERVER.configuration().packetInfo(KeepAlivePacket.class).id();
+    private static final int CONFIG_PING = SERVER.configuration().packetInfo(PingPacket.class).id();
+    private static final int KNOWN_PACKS = SERVER.configuration().packetInfo(SelectKnownPacksPacket.class).id();
+    private static final int FINISH_CONFIGURATION = SERVER.configuration().packetInfo(FinishConfigurationPacket.class).id();
+    private static final int PLAY_KEEP_ALIVE = SERVER.play().packetInfo(KeepAlivePacket.class).id();
+    private static final int PLAY_PING = SERVER.play().packetInfo(PingPacket.class).id();
+    private static final int PLAYER_POSITION = SERVER.play().packetInfo(PlayerPositionAndLookPacket.class).id();
+
+    /**
+     * Traffic counters shared by every client.
+     */
+    static final LongAdder PACKETS_RECEIVED = new LongAdder();
+    static final LongAdder BYTES_RECEIVED = new LongAdder();
+    static final LongAdder PACKETS_SENT = new LongAdder();
+    static final LongAdder BYTES_SENT = new LongAdder();
+
+    private final String username;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Inflater inflater = new Inflater();
+
+    private volatile ConnectionState state = ConnectionState.LOGIN;
+    private int compressionThreshold = -1;
+    private boolean sneaking = false;
+
+    SimulatedClient(@NotNull String username, @NotNull InetSocketAddress address) throws IOException {
+        this.username = username;
+        this.socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(address);
+
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        final UUID uuid = UUID.nameUUIDFromBytes(("OfflinePlayer:" + username).getBytes(StandardCharsets.UTF_8));
+        send(CLIENT.handshake(), new ClientHandshakePacket(MinecraftServer.PROTOCOL_VERSION,
+                address.getHostString(), address.getPort(), ClientHandshakePacket.Intent.LOGIN));
+        send(CLIENT.login(), new ClientLoginStartPacket(username, uuid));
+    }
+
+    /**
+     * Reads and handles packets until the connection is closed.
+     */
+    void readLoop() {
+        try {
+            while (!socket.isClosed()) {
+                handle(readFrame());
+            }
+        } catch (IOException ignored) {
+            // Disconnected, either by us or by the server
+        } finally {
+            close();
+            inflater.end();
+        }
+    }
+
+    private void handle(byte @NotNull [] frame) throws IOException {
+        final NetworkBuffer buffer = NetworkBuffer.wrap(frame, 0, frame.length);
+        final int id = buffer.read(NetworkBuffer.VAR_INT);
+
+        switch (state) {
+            case LOGIN -> {
+                if (id == SET_COMPRESSION) {
+                    compressionThreshold = ((SetCompressionPacket) SERVER.login().create(id, buffer)).threshold();
+                } else if (id == LOGIN_SUCCESS) {
+                    send(CLIENT.login(), new ClientLoginAcknowledgedPacket());
+                    state = ConnectionState.CONFIGURATION;
+                }
+            }
+            case CONFIGURATION -> {
+                if (id == CONFIG_KEEP_ALIVE) {
+                    send(CLIENT.configuration(), new ClientKeepAlivePacket(((KeepAlivePacket) SERVER.configuration().create(id, buffer)).id()));
+                } else if (id == CONFIG_PING) {
+                    send(CLIENT.configuration(), new ClientPongPacket(((PingPacket) SERVER.configuration().create(id, buffer)).id()));
+                } else if (id == KNOWN_PACKS) {
+                    var packs = (SelectKnownPacksPacket) SERVER.configuration().create(id, buffer);
+                    send(CLIENT.configuration(), new ClientSelectKnownPacksPacket(packs.entries()));
+                } else if (id == FINISH_CONFIGURATION) {
+                    send(CLIENT.configuration(), new ClientFinishConfigurationPacket());
+                    state = ConnectionState.PLAY;
+                }
+            }
+            case PLAY -> {
+                if (id == PLAY_KEEP_ALIVE) {
+                    send(CLIENT.play(), new ClientKeepAlivePacket(((KeepAlivePacket) SERVER.play().create(id, buffer)).id()));
+                } else if (id == PLAY_PING) {
+                    send(CLIENT.play(), new ClientPongPacket(((PingPacket) SERVER.play().create(id, buffer)).id()));
+                } else if (id == PLAYER_POSITION) {
+                    var position = (PlayerPositionAndLookPacket) SERVER.play().create(id, buffer);
+                    send(CLIENT.play(), new ClientTeleportConfirmPacket(position.teleportId()));
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private byte @NotNull [] readFrame() throws IOException {
+        final int length = readVarInt(in);
+        final byte[] frame = new byte[length];
+        in.readFully(frame);
+
+        PACKETS_RECEIVED.increment();
+        BYTES_RECEIVED.add(length + varIntSize(length));
+
+        if (compressionThreshold < 0) return frame;
+
+        final DataInputStream data = new DataInputStream(new ByteArrayInputStream(frame));
+        final int uncompressedLength = readVarInt(data);
+        final int headerLength = varIntSize(uncompressedLength);
+
+        if (uncompressedLength == 0) {
+            final byte[] packet = new byte[length - headerLength];
+            System.arraycopy(frame, headerLength, packet, 0, packet.length);
+            return packet;
+        }
+
+        final byte[] packet = new byte[uncompressedLength];
+        inflater.reset();
+        inflater.setInput(frame, headerLength, length - headerLength);
+        try {
+            inflater.inflate(packet);
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed packet", e);
+        }
+        return packet;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private synchronized void send(@NotNull PacketRegistry<ClientPacket> registry, @NotNull ClientPacket packet) throws IOException {
+        final PacketRegistry.PacketInfo info = registry.packetInfo(packet);
+        final byte[] body = NetworkBuffer.makeArray(buffer -> {
+            buffer.write(NetworkBuffer.VAR_INT, info.id());
+            buffer.write(info.serializer(), packet);
+        });
+
+        // Serverbound packets are tiny, so they're always sent uncompressed
+        final int length = body.length + (compressionThreshold >= 0 ? 1 : 0);
+        writeVarInt(out, length);
+        if (compressionThreshold >= 0) writeVarInt(out, 0);
+        out.write(body);
+        out.flush();
+
+        PACKETS_SENT.increment();
+        BYTES_SENT.add(length + varIntSize(length));
+    }
+
+    boolean isPlaying() {
+        return state == ConnectionState.PLAY && !socket.isClosed();
+    }
+
+    void command(@NotNull String command) throws IOException {
+        send(CLIENT.play(), new ClientCommandChatPacket(command));
+    }
+
+    /**
+     * Toggles sneaking. Starting to sneak in a game spawns a physics block.
+     */
+    void toggleSneak() throws IOException {
+        sneaking = !sneaking;
+        send(CLIENT.play(), new ClientInputPacket(false, false, false, false, false, sneaking, false));
+    }
+
+    @NotNull String username() {
+        return username;
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static int readVarInt(@NotNull DataInput input) throws IOException {
+        int value = 0;
+        for (int i = 0; i < 5; i++) {
+            final byte b = input.readByte();
+            value |= (b & 0x7F) << (i * 7);
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("VarInt too big");
+    }
+
+    private static void writeVarInt(@NotNull DataOutput output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    private static int varIntSize(int value) {
+        return value == 0 ? 1 : (31 - Integer.numberOfLeadingZeros(value)) / 7 + 1;
+    }
+}
@@ -0,0 +1,132 @@
+package net.minestom.jam;
+
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.event.server.ServerTickMonitorEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides whether this node can take one more game without pushing the running ones over the tick budget.
+ * <br>
+ * The cost model is sampled every tick: the number of games, the number of physics objects across them, and a rolling
+ * average of the time all games spend updating per tick. The node is saturated when it reaches
+ * {@code -Dtower.maxGames} (no limit by default) or {@code -Dtower.maxBodies} (20000 by default), when broadcasts are
+ * already being slowed down (see {@link TickRates}), or when one more average game would take the updates past
+ * {@code -Dtower.admissionBudget} of the tick (0.6 by default).
+ * <br>
+ * Full queues that can't be admitted wait in line, first come first served, and are released one per second once
+ * there is room again, so each new game shows up in the averages before the next one starts.
+ * Call everything on the tick thread.
+ */
+public final class AdmissionControl {
+
+    private static final int MAX_GAMES = Integer.getInteger("tower.maxGames", 0);
+    private static final int MAX_BODIES = Integer.getInteger("tower.maxBodies", 20_000);
+    private static final double BUDGET_NANOS = 1e9 / TickRates.SIMULATION_RATE
+            * Double.parseDouble(System.getProperty("tower.admissionBudget", "0.6"));
+
+    private static final double SMOOTHING = 0.05;
+    private static final long RELEASE_SPACING_NANOS = 1_000_000_000L;
+
+    private final List<Queue> waiting = new ArrayList<>();
+
+    private double averageUpdateNanos = 0;
+    private int bodies = 0;
+    private long lastRelease = 0;
+
+    /**
+     * Starts sampling the cost model every tick. Until then, the node only saturates on the number of games.
+     */
+    public void install() {
+        MinecraftServer.getGlobalEventHandler().addListener(ServerTickMonitorEvent.class, event -> sample());
+    }
+
+    private void sample() {
+        long updateNanos = 0;
+        int bodies = 0;
+        for (Game game : Game.GAMES) {
+            updateNanos += game.getLastUpdateNanos();
+            bodies += game.getPhysics().getObjects().size();
+        }
+
+        averageUpdateNanos += (updateNanos - averageUpdateNanos) * SMOOTHING;
+        this.bodies = bodies;
+    }
+
+    /**
+     * Returns whether starting another game here would hurt the running ones.
+     */
+    public boolean isSaturated() {
+        final int games = Game.GAMES.size();
+
+        if (MAX_GAMES > 0 && games >= MAX_GAMES) return true;
+        if (bodies >= MAX_BODIES) return true;
+        if (TickRates.isDegraded()) return true;
+
+        // Assume the next game costs as much as the average running one
+        final double projected = games == 0 ? averageUpdateNanos : averageUpdateNanos * (games + 1) / games;
+        return projected > BUDGET_NANOS;
+    }
+
+    /**
+     * Tries to admit the game of a full queue. If it can't start yet, the queue is put in line, and should try again
+     * later.
+     *
+     * @return whether the game can start now
+     */
+    public boolean tryAdmit(@NotNull Queue queue) {
+        final boolean held = indexOf(queue) >= 0;
+
+        // Queues already in line go first
+        if ((!held && !waiting.isEmpty()) || (held && waiting.getFirst() != queue)) {
+            if (!held) waiting.add(queue);
+            return false;
+        }
+
+        final long now = System.nanoTime();
+        if (isSaturated() || (held && now - lastRelease < RELEASE_SPACING_NANOS)) {
+            if (!held) waiting.add(queue);
+            return false;
+        }
+
+        if (held) {
+            waiting.removeFirst();
+            lastRelease = now;
+        }
+        return true;
+    }
+
+    /**
+     * Takes a queue out of line, e.g. when it is no longer full or was sent to another node.
+     */
+    public void forget(@NotNull Queue queue) {
+        final int index = indexOf(queue);
+        if (index >= 0) waiting.remove(index);
+    }
+
+    /**
+     * Returns the position of a queue in line, starting at 1, or 0 if it isn't waiting.
+     */
+    public int position(@NotNull Queue queue) {
+        return indexOf(queue) + 1;
+    }
+
+    /**
+     * Queues are records over their mutable member set, so they're compared by identity.
+     */
+    private int indexOf(@NotNull Queue queue) {
+        for (int i = 0; i < waiting.size(); i++) {
+            if (waiting.get(i) == queue) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of full queues waiting for a game.
+     */
+    public int waitingCount() {
+        return waiting.size();
+    }
+}
@@ -0,0 +1,222 @@
+package net.minestom.jam;
+
+import com.jme3.bullet.collision.ContactListener;
+import com.jme3.bullet.collision.ManifoldPoints;
+import com.jme3.bullet.collision.PhysicsCollisionObject;
+import com.jme3.math.Vector3f;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minestom.jam.objects.MinecraftPhysicsObject;
+import net.minestom.server.entity.Player;
+import net.minestom.server.instance.Instance;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Gathers the contacts of one physics space during its step, and dispatches them afterward as a single
+ * {@link PhysicsContactsEvent}.
+ * <br>
+ * Contacts are written into parallel arrays that are reused every tick. Only contacts involving at least one
+ * {@link MinecraftPhysicsObject} and with an impulse of at least {@link #setMinimumImpulse(float)} are kept, one per
+ * pair of bodies (the strongest, over every substep). A pair that was already reported the previous tick is skipped,
+ * so resting or sliding contacts are reported once when they start rather than every tick.
+ */
+public final class ContactCollector implements ContactListener {
+
+    /**
+     * What the second body of a contact is.
+     */
+    public static final byte OBJECT = 1, PLAYER = 2, STATIC = 4;
+
+    private static final int NO_ID = -1;
+
+    private final MinecraftPhysics physics;
+
+    private float minimumImpulse = 1f;
+    private int otherTypes = OBJECT | PLAYER | STATIC;
+
+    private int size = 0;
+    private MinecraftPhysicsObject[] objectA = new MinecraftPhysicsObject[256];
+    private Object[] other = new Object[256];
+    private byte[] otherType = new byte[256];
+    private float[] impulse = new float[256];
+    private float[] position = new float[256 * 3];
+
+    private final Long2IntOpenHashMap pairIndex = new Long2IntOpenHashMap();
+    private LongOpenHashSet reported = new LongOpenHashSet();
+    private LongOpenHashSet previouslyReported = new LongOpenHashSet();
+    private final Vector3f point = new Vector3f();
+
+    ContactCollector(@NotNull MinecraftPhysics physics) {
+        this.physics = physics;
+        pairIndex.defaultReturnValue(NO_ID);
+    }
+
+    /**
+     * Sets the smallest impulse, in newton-seconds, for a contact to be reported.
+     */
+    public void setMinimumImpulse(float minimumImpulse) {
+        this.minimumImpulse = minimumImpulse;
+    }
+
+    /**
+     * Sets what the other body of a contact may be, as a mask of {@link #OBJECT}, {@link #PLAYER} and {@link #STATIC}.
+     */
+    public void setOtherTypes(int otherTypes) {
+        this.otherTypes = otherTypes;
+    }
+
+    /**
+     * Synchronized since the spaces of a partitioned world are stepped in parallel.
+     */
+    @Override
+    public synchronized void onContactProcessed(PhysicsCollisionObject a, PhysicsCollisionObject b, long manifoldPointId) {
+        final float applied = ManifoldPoints.getAppliedImpulse(manifoldPointId);
+        if (applied < minimumImpulse) return;
+
+        MinecraftPhysicsObject first = physics.getObjectByPhysicsObject(a);
+        MinecraftPhysicsObject second = physics.getObjectByPhysicsObject(b);
+        boolean swapped = false;
+        if (first == null) {
+            if (second == null) return;
+            first = second;
+            second = null;
+            swapped = true;
+        }
+
+        final Object otherBody;
+        final byte type;
+        final int otherId;
+        if (second != null) {
+            otherBody = second;
+            type = OBJECT;
+            otherId = second.getId();
+        } else {
+            final Object user = (swapped ? a : b).getUserObject();
+            if (user instanceof Player player) {
+                otherBody = player;
+                type = PLAYER;
+                otherId = -2 - player.getEntityId();
+            } else {
+                otherBody = null;
+                type = STATIC;
+                otherId = NO_ID;
+            }
+        }
+        if ((otherTypes & type) == 0) return;
+
+        // Order object pairs so that A-B and B-A are the same key
+        final int idA = type == OBJECT ? Math.min(first.getId(), otherId) : first.getId();
+        final int idB = type == OBJECT ? Math.max(first.getId(), otherId) : otherId;
+        final long key = ((long) idA << 32) | (idB & 0xFFFFFFFFL);
+
+        final int existing = pairIndex.get(key);
+        if (existing != NO_ID) {
+            if (applied > impulse[existing]) {
+                impulse[existing] = applied;
+                storePosition(existing, manifoldPointId, swapped);
+            }
+            return;
+        }
+
+        reported.add(key);
+        if (previouslyReported.contains(key)) return;
+
+        if (size == impulse.length) grow();
+        pairIndex.put(key, size);
+        objectA[size] = first;
+        other[size] = otherBody;
+        otherType[size] = type;
+        impulse[size] = applied;
+        storePosition(size, manifoldPointId, swapped);
+        size++;
+    }
+
+    private void storePosition(int index, long manifoldPointId, boolean swapped) {
+        if (swapped) ManifoldPoints.getPositionWorldOnB(manifoldPointId, point);
+        else ManifoldPoints.getPositionWorldOnA(manifoldPointId, point);
+
+        position[index * 3] = point.x;
+        position[index * 3 + 1] = point.y;
+        position[index * 3 + 2] = point.z;
+    }
+
+    private void grow() {
+        final int capacity = impulse.length * 2;
+        objectA = Arrays.copyOf(objectA, capacity);
+        other = Arrays.copyOf(other, capacity);
+        otherType = Arrays.copyOf(otherType, capacity);
+        impulse = Arrays.copyOf(impulse, capacity);
+        position = Arrays.copyOf(position, capacity * 3);
+    }
+
+    @Override
+    public void onContactEnded(long manifoldId) {
+    }
+
+    @Override
+    public void onContactStarted(long manifoldId) {
+    }
+
+    /**
+     * Calls the event for the contacts of the last step, if there were any, then resets for the next one.
+     */
+    void dispatch(@NotNull Instance instance) {
+        // Pairs are deduplicated against the pairs in contact last tick, reported or not
+        final LongOpenHashSet swap = previouslyReported;
+        previouslyReported = reported;
+        reported = swap;
+        reported.clear();
+
+        if (size > 0) instance.eventNode().call(new PhysicsContactsEvent(instance, this));
+
+        Arrays.fill(objectA, 0, size, null);
+        Arrays.fill(other, 0, size, null);
+        pairIndex.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the number of contacts of the last step. The accessors below are only valid during the event.
+     */
+    public int size() {
+        return size;
+    }
+
+    public @NotNull MinecraftPhysicsObject objectA(int index) {
+        return objectA[index];
+    }
+
+    /**
+     * Returns the type of the other body: {@link #OBJECT}, {@link #PLAYER} or {@link #STATIC}.
+     */
+    public byte otherType(int index) {
+        return otherType[index];
+    }
+
+    public @Nullable MinecraftPhysicsObject objectB(int index) {
+        return other[index] instanceof MinecraftPhysicsObject object ? object : null;
+    }
+
+    public @Nullable Player player(int index) {
+        return other[index] instanceof Player player ? player : null;
+    }
+
+    public float impulse(int index) {
+        return impulse[index];
+    }
+
+    public float x(int index) {
+        return position[index * 3];
+    }
+
+    public float y(int index) {
+        return position[index * 3 + 1];
+    }
+
+    public float z(int index) {
+        return position[index * 3 + 2];
+    }
+}
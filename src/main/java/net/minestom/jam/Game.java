@@ -5,12 +5,21 @@ import com.jme3.bullet.collision.shapes.*;
 import com.jme3.bullet.objects.PhysicsRigidBody;
 import com.jme3.math.Plane;
 import com.jme3.math.Vector3f;
+import net.kyori.adventure.sound.Sound;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
+import net.minestom.jam.instance.BinaryWorld;
+import net.minestom.jam.instance.GameInstancePool;
 import net.minestom.jam.instance.Lobby;
+import net.minestom.jam.journal.MatchJournal;
+import net.minestom.jam.metrics.TowerMetrics;
 import net.minestom.jam.objects.BlockRigidBody;
 import net.minestom.jam.objects.MinecraftPhysicsObject;
+import net.minestom.jam.objects.StructureRigidBody;
+import net.minestom.jam.profiling.TickPhase;
+import net.minestom.jam.profiling.TickProfiler;
+import net.minestom.jam.replay.ReplayRecorder;
 import net.minestom.server.MinecraftServer;
 import net.minestom.server.adventure.audience.PacketGroupingAudience;
 import net.minestom.server.coordinate.Pos;
@@ -18,16 +27,22 @@ import net.minestom.server.coordinate.Vec;
 import net.minestom.server.entity.Entity;
 import net.minestom.server.entity.GameMode;
 import net.minestom.server.entity.Player;
+import net.minestom.server.entity.PlayerHand;
+import net.minestom.server.event.EventFilter;
+import net.minestom.server.event.EventNode;
+import net.minestom.server.event.trait.InstanceEvent;
+import net.minestom.server.event.player.PlayerHandAnimationEvent;
 import net.minestom.server.event.player.PlayerStartSneakingEvent;
 import net.minestom.server.instance.InstanceContainer;
-import net.minestom.server.instance.anvil.AnvilLoader;
 import net.minestom.server.instance.block.Block;
+import net.minestom.server.sound.SoundEvent;
 import net.minestom.server.tag.Tag;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.UnmodifiableView;
 
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
@@ -40,56 +55,111 @@ public class Game implements PacketGroupingAudience {
             new Pos(43.5, 5, -119.5, 90, 0)
     ));
 
+    private static final double PUNCH_REACH = 4.5;
+    private static final double PUNCH_STRENGTH = 3;
+    private static final int MAX_IMPACT_SOUNDS = 8;
+
+    private static final int TOWER_WIDTH = 2;
+    private static final int TOWER_HEIGHT = 6;
+    private static final float TOWER_MASS_PER_BLOCK = 1f;
+
     /**
      * The game that a player is in.
      */
     public static final Tag<Game> GAME = Tag.Transient("Game");
-    public static final @NotNull Set<Game> GAMES = new HashSet<>();
+    /**
+     * The game that a player is spectating.
+     */
+    public static final Tag<Game> SPECTATING = Tag.Transient("Spectating");
+    public static final @NotNull GameRegistry GAMES = new GameRegistry();
 
-    private static InstanceContainer createGameInstance() {
-        InstanceContainer instance = MinecraftServer.getInstanceManager().createInstanceContainer(
-                new AnvilLoader(Path.of("game"))
-        );
+    /**
+     * Shared between every game, so the map is only decoded once per server.
+     */
+    private static final BinaryWorld GAME_WORLD = BinaryWorld.loadOrConvert(Path.of("game"));
 
+    /**
+     * Finished instances are reset and reused by the next match.
+     */
+    private static final GameInstancePool INSTANCES = new GameInstancePool(
+            GAME_WORLD, Integer.getInteger("tower.idleGameInstances", 4), instance -> {
         instance.setTimeRate(0);
         instance.setTime(6000); // Noon
+    });
 
-        return instance;
+    /**
+     * Decodes the game world and fills the instance pool, loading the chunks of each spawn point. Called before the
+     * server binds, so neither happens when the first match starts.
+     */
+    public static @NotNull CompletableFuture<Void> preload() {
+        return INSTANCES.warmup(spawnPoints);
     }
 
+    private final int id = GAMES.nextId();
+    private final TickProfiler profiler = new TickProfiler(id);
     private final InstanceContainer instance;
+    private final EventNode<InstanceEvent> events = EventNode.type("game", EventFilter.INSTANCE);
     private final List<Player> players = new ArrayList<>();
     private final AtomicBoolean ending = new AtomicBoolean(false);
     private final MinecraftPhysics minecraftPhysics;
     private final Map<MinecraftPhysicsObject, List<Entity>> activeShulkerObjects = new HashMap<>();
+    private final SpectatorFeed spectators = new SpectatorFeed();
+
+    private final long startedAt = System.currentTimeMillis();
+    private final int startingPlayers;
+    private long peakUpdateNanos = 0;
+    private long lastUpdateNanos = 0;
 
     private long lastUpdate = System.nanoTime();
     private int ticks = 0;
 
     public Game(@NotNull Set<UUID> players) {
-        this.instance = createGameInstance();
+        final long start = profiler.start();
+
+        this.instance = INSTANCES.acquire();
+        instance.eventNode().addChild(events);
 
         for (int i = 0; i < players.size(); i++) {
             Player player = MinecraftServer.getConnectionManager().getOnlinePlayerByUuid(players.toArray(new UUID[0])[i]);
-            if (player == null) continue;
+            // Never pull a player out of a game that's already running
+            if (player == null || player.hasTag(GAME) || GAMES.getByPlayer(player.getUuid()) != null) continue;
+
+            final Game watching = player.getTag(SPECTATING);
+            if (watching != null) watching.stopSpectating(player);
 
             this.players.add(player);
             player.setTag(GAME, this);
+            GAMES.bindPlayer(player.getUuid(), this);
             player.setGameMode(GameMode.CREATIVE);
 
             player.setInstance(instance, spawnPoints.get(i % spawnPoints.size()));
         }
 
-        minecraftPhysics = new MinecraftPhysics(instance);
-        // Add the physics objects of each platform
+        startingPlayers = this.players.size();
+
+        minecraftPhysics = new MinecraftPhysics(instance, profiler);
+        if (ReplayRecorder.ENABLED) minecraftPhysics.setRecorder(ReplayRecorder.forGame(id));
+        for (Player player : this.players) {
+            minecraftPhysics.addPlayer(player);
+        }
+
+        // Add the physics objects of each platform, which all share one shape
+        var shape = new BoxCollisionShape(new Vector3f(3f, 0.005f, 3f));
         for (Pos spawnPoint : spawnPoints) {
-            var shape = new BoxCollisionShape(new Vector3f(3f, 0.005f, 3f));
-            var platform = new PhysicsRigidBody(shape, PhysicsRigidBody.massForStatic);
+            var platform = minecraftPhysics.getResources().body(new PhysicsRigidBody(shape, PhysicsRigidBody.massForStatic));
             platform.setPhysicsLocation(new Vector3f((float) spawnPoint.x(), (float) spawnPoint.y() - 1f, (float) spawnPoint.z()));
-            minecraftPhysics.getPhysicsSpace().add(platform);
+            minecraftPhysics.add(platform);
+        }
+
+        // Every platform gets a tower to knock down, which breaks apart when hit hard enough
+        for (Pos spawnPoint : spawnPoints) {
+            var tower = new StructureRigidBody(minecraftPhysics, StructureRigidBody.box(
+                    spawnPoint.blockX() + 1, spawnPoint.blockY() - 1, spawnPoint.blockZ() + 1,
+                    TOWER_WIDTH, TOWER_HEIGHT, TOWER_WIDTH, Block.STONE_BRICKS), TOWER_MASS_PER_BLOCK);
+            tower.setInstance();
         }
 
-        instance.eventNode().addListener(PlayerStartSneakingEvent.class, event -> {
+        events.addListener(PlayerStartSneakingEvent.class, event -> {
             var block = new BlockRigidBody(
                     minecraftPhysics,
                     new Vector3f((float) event.getPlayer().getPosition().x(), (float) event.getPlayer().getPosition().y() - 1f, (float) event.getPlayer().getPosition().z()),
@@ -100,32 +170,94 @@ public class Game implements PacketGroupingAudience {
             );
             block.setInstance();
             block.setAlwaysActive(true);
-            minecraftPhysics.addObject(block);
+        });
+
+        events.addListener(PlayerHandAnimationEvent.class, event -> {
+            if (event.getHand() != PlayerHand.MAIN) return;
+
+            final Player player = event.getPlayer();
+            final Vec direction = player.getPosition().direction();
+
+            minecraftPhysics.getRaycasts().submit(player.getPosition().add(0, player.getEyeHeight(), 0), direction, PUNCH_REACH, hit -> {
+                if (hit == null) return;
+
+                hit.object().applyImpulse(CoordinateUtils.toVector3(direction.mul(PUNCH_STRENGTH)), CoordinateUtils.toVector3(hit.point()));
+            });
+        });
+
+        events.addListener(PhysicsContactsEvent.class, event -> {
+            final ContactCollector contacts = event.getContacts();
 
+            for (int i = 0; i < contacts.size(); i++) {
+                if (contacts.impulse(i) < StructureRigidBody.FRACTURE_IMPULSE) continue;
+
+                final Vector3f point = new Vector3f(contacts.x(i), contacts.y(i), contacts.z(i));
+                if (contacts.objectA(i) instanceof StructureRigidBody structure) structure.fracture(point, contacts.impulse(i));
+                if (contacts.objectB(i) instanceof StructureRigidBody structure) structure.fracture(point, contacts.impulse(i));
+            }
+
+            for (int i = 0; i < Math.min(contacts.size(), MAX_IMPACT_SOUNDS); i++) {
+                final float volume = Math.min(1f, contacts.impulse(i) / 10f);
+                instance.playSound(Sound.sound(SoundEvent.BLOCK_STONE_HIT, Sound.Source.BLOCK, volume, 1f),
+                        contacts.x(i), contacts.y(i), contacts.z(i));
+            }
         });
 
         GAMES.add(this);
+        TowerMetrics.GAMES_STARTED.increment();
+        MatchJournal.gameStarted(id, startingPlayers);
+
+        profiler.end(TickPhase.GAME_CREATION, start, 0);
+
+        // Players can go offline or into another game before it starts, and nobody wins a game alone
+        if (this.players.size() <= 1) onGameEnd();
     }
 
     public void onGameEnd() {
-        ending.set(true);
+        if (ending.getAndSet(true)) return;
+
+        GAMES.remove(this);
+        MatchJournal.gameEnded(id, startingPlayers, minecraftPhysics.getSpawnedObjectCount(),
+                System.currentTimeMillis() - startedAt, peakUpdateNanos);
 
+        List<CompletableFuture<Void>> leaving = new ArrayList<>();
         for (Player player : players) {
-            player.setInstance(Lobby.INSTANCE, Lobby.SPAWN_POINT);
+            leaving.add(Lobby.send(player));
+            minecraftPhysics.removePlayer(player);
             player.removeTag(GAME);
+            GAMES.unbindPlayer(player.getUuid());
         }
-
         players.clear();
-        GAMES.remove(this);
+
+        for (Player spectator : spectators.getPlayers()) {
+            leaving.add(Lobby.send(spectator));
+            stopSpectating(spectator);
+        }
+
+        // Clean up on the tick thread once everyone is out, so it never races with an update
+        CompletableFuture.allOf(leaving.toArray(CompletableFuture[]::new)).whenComplete((ignored, throwable) ->
+                MinecraftServer.getSchedulerManager().scheduleNextTick(() -> {
+                    activeShulkerObjects.values().forEach(entities -> entities.forEach(Entity::remove));
+                    activeShulkerObjects.clear();
+
+                    minecraftPhysics.destroy();
+
+                    instance.eventNode().removeChild(events);
+                    INSTANCES.release(instance);
+                }));
     }
 
     public void onDisconnect(@NotNull Player player) {
         players.remove(player);
+        minecraftPhysics.removePlayer(player);
+        GAMES.unbindPlayer(player.getUuid());
+        MatchJournal.playerLeft(id, players.size(), minecraftPhysics.getSpawnedObjectCount(),
+                System.currentTimeMillis() - startedAt, peakUpdateNanos);
 
         sendMessage(PLAYER_HAS_LEFT.apply(player.getUsername()));
 
         // As an example, we end the game if there's one player left
-        if (players.size() == 1) {
+        if (players.size() <= 1) {
             onGameEnd();
         }
     }
@@ -134,6 +266,18 @@ public class Game implements PacketGroupingAudience {
      * Method called every tick to update the game state.
      */
     public void update() {
+        if (ending.get()) return;
+
+        final long start = profiler.start();
+        tick();
+
+        final long duration = profiler.end(TickPhase.GAME_UPDATE, start, minecraftPhysics.getObjects().size());
+        TowerMetrics.GAME_UPDATE_DURATION.record(duration);
+        lastUpdateNanos = duration;
+        if (duration > peakUpdateNanos) peakUpdateNanos = duration;
+    }
+
+    private void tick() {
         ticks++;
 
         HashMap<MinecraftPhysicsObject, Pos> lastObjectPositions = new HashMap<>();
@@ -145,7 +289,12 @@ public class Game implements PacketGroupingAudience {
         long diff = System.nanoTime() - lastUpdate;
         float deltaTime = diff / 1_000_000_000f;
         lastUpdate = System.nanoTime();
-        minecraftPhysics.update(deltaTime);
+
+        // Games take turns broadcasting when the interval is more than a tick
+        final boolean broadcast = TickRates.isBroadcastTick(ticks + id);
+        minecraftPhysics.setInterpolationTicks(TickRates.interpolationTicks());
+        minecraftPhysics.update(deltaTime, broadcast);
+        if (broadcast) spectators.broadcast(minecraftPhysics.getObjects(), TickRates.interpolationTicks());
 
         if (ticks % 20 != 0) return;
 
@@ -184,6 +333,35 @@ public class Game implements PacketGroupingAudience {
         }
     }
 
+    /**
+     * Moves a player into this game as a spectator. They see the physics objects through a shared {@link SpectatorFeed}.
+     */
+    public void spectate(@NotNull Player player) {
+        if (ending.get()) return;
+
+        player.setTag(SPECTATING, this);
+        player.setAutoViewable(false);
+        player.setGameMode(GameMode.SPECTATOR);
+
+        player.setInstance(instance, spawnPoints.getFirst()).thenRun(() ->
+                MinecraftServer.getSchedulerManager().scheduleNextTick(() -> {
+                    // They may have left or the game ended while they were moving
+                    if (player.getTag(SPECTATING) == this && !ending.get()) {
+                        spectators.add(player, minecraftPhysics.getObjects());
+                    }
+                }));
+    }
+
+    /**
+     * Stops streaming to a spectator. Moving them out of the instance is up to the caller.
+     */
+    public void stopSpectating(@NotNull Player player) {
+        spectators.remove(player);
+        player.removeTag(SPECTATING);
+        player.setAutoViewable(true);
+        player.setGameMode(GameMode.SURVIVAL);
+    }
+
     private static final Function<String, Component> PLAYER_HAS_LEFT = username -> Component.textOfChildren(
             Component.text("[!]", NamedTextColor.YELLOW, TextDecoration.BOLD),
             Component.text(" ", NamedTextColor.GRAY),
@@ -191,6 +369,38 @@ public class Game implements PacketGroupingAudience {
             Component.text(" has left the game!", NamedTextColor.GRAY)
     );
 
+    /**
+     * Returns the duration of the last update, physics step included, in nanoseconds.
+     */
+    public long getLastUpdateNanos() {
+        return lastUpdateNanos;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public @NotNull InstanceContainer getInstance() {
+        return instance;
+    }
+
+    public @NotNull MinecraftPhysics getPhysics() {
+        return minecraftPhysics;
+    }
+
+    public @NotNull TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Returns the number of shulker hitbox entities (including their holders) currently spawned.
+     */
+    public int getShulkerEntityCount() {
+        int count = 0;
+        for (List<Entity> entities : activeShulkerObjects.values()) count += entities.size();
+        return count;
+    }
+
     @Override
     public @NotNull @UnmodifiableView Collection<@NotNull Player> getPlayers() {
         return Collections.unmodifiableCollection(players);
@@ -0,0 +1,84 @@
+package net.minestom.jam;
+
+import net.minestom.server.instance.Instance;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Every running {@link Game}, indexed by ID, instance and player.
+ * <br>
+ * Iteration works on a snapshot and never locks, so games can be added or removed from any thread (e.g. from a
+ * disconnect) while the tick task is updating them. Lookups are constant time.
+ */
+public final class GameRegistry implements Iterable<Game> {
+
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    private final List<Game> games = new CopyOnWriteArrayList<>();
+    private final Map<Integer, Game> byId = new ConcurrentHashMap<>();
+    private final Map<Instance, Game> byInstance = new ConcurrentHashMap<>();
+    private final Map<UUID, Game> byPlayer = new ConcurrentHashMap<>();
+
+    /**
+     * Reserves a new, unique game ID.
+     */
+    public int nextId() {
+        return nextId.incrementAndGet();
+    }
+
+    public void add(@NotNull Game game) {
+        byId.put(game.getId(), game);
+        byInstance.put(game.getInstance(), game);
+        games.add(game);
+    }
+
+    /**
+     * Removes a game along with every player still bound to it.
+     */
+    public void remove(@NotNull Game game) {
+        games.remove(game);
+        byId.remove(game.getId(), game);
+        byInstance.remove(game.getInstance(), game);
+        byPlayer.values().removeIf(game::equals);
+    }
+
+    public void bindPlayer(@NotNull UUID player, @NotNull Game game) {
+        byPlayer.put(player, game);
+    }
+
+    public void unbindPlayer(@NotNull UUID player) {
+        byPlayer.remove(player);
+    }
+
+    public @Nullable Game getById(int id) {
+        return byId.get(id);
+    }
+
+    public @Nullable Game getByInstance(@NotNull Instance instance) {
+        return byInstance.get(instance);
+    }
+
+    public @Nullable Game getByPlayer(@NotNull UUID player) {
+        return byPlayer.get(player);
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    /**
+     * Iterates over a snapshot of the games at the time of the call.
+     */
+    @Override
+    public @NotNull Iterator<Game> iterator() {
+        return games.iterator();
+    }
+}
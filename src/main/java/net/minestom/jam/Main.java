@@ -2,6 +2,12 @@ package net.minestom.jam;
 
 import net.minestom.jam.instance.BlockHandlers;
 import net.minestom.jam.instance.Lobby;
+import net.minestom.jam.metrics.TowerMetrics;
+import net.minestom.jam.profiling.PerfCommand;
+import net.minestom.jam.queue.BrokerQueueBackend;
+import net.minestom.jam.queue.InMemoryQueueBackend;
+import net.minestom.jam.queue.QueueBackend;
+import net.minestom.jam.queue.QueueBroker;
 import net.minestom.server.MinecraftServer;
 import net.minestom.server.entity.Player;
 import net.minestom.server.event.player.AsyncPlayerConfigurationEvent;
@@ -10,22 +16,24 @@ import net.minestom.server.extras.MojangAuth;
 import net.minestom.server.extras.velocity.VelocityProxy;
 import net.minestom.server.timer.TaskSchedule;
 
-import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
 
 public class Main {
     public static void main(String[] args) throws Exception {
-        // Load native libraries
-        String osName = System.getProperty("os.name").toLowerCase();
-        String osArch = System.getProperty("os.arch");
+        NativeLoader.load();
+        Startup.mark("natives");
 
-        if (osName.contains("linux") && (osArch.equals("amd64") || osArch.equals("x86_64"))) System.load(new File("./libs/natives/bulletjme.dll").getAbsolutePath());
-        else if (osName.contains("windows")) System.load(new java.io.File("./libs/natives/bulletjme.dll").getAbsolutePath());
-        else throw new UnsupportedOperationException("Unsupported OS: " + osName);
-
-        System.setProperty("minestom.tps", "60");
+        System.setProperty("minestom.tps", String.valueOf(TickRates.SIMULATION_RATE));
 
         MinecraftServer minecraftServer = MinecraftServer.init();
-        MojangAuth.init();
+        Startup.mark("init");
+
+        // Offline mode is only meant for local testing, e.g. the load test harness
+        if (!Boolean.getBoolean("tower.offline")) {
+            MojangAuth.init();
+        }
 
         String secret = System.getenv("VELOCITY_SECRET");
         if (secret != null) {
@@ -34,14 +42,17 @@ public class Main {
 
         BlockHandlers.register(MinecraftServer.getBlockManager());
 
-        Queue.Manager queues = new Queue.Manager();
+        Queue.Manager queues = new Queue.Manager(createQueueBackend());
         Queue.Commands.register(queues, MinecraftServer.getCommandManager());
+        MinecraftServer.getCommandManager().register(new PerfCommand(), new SpectateCommand());
+        TowerMetrics.install(queues);
+        TickRates.install();
 
         var events = MinecraftServer.getGlobalEventHandler();
         events.addListener(AsyncPlayerConfigurationEvent.class, event -> {
             final Player player = event.getPlayer();
 
-            event.setSpawningInstance(Lobby.INSTANCE);
+            event.setSpawningInstance(Lobby.pickShard(player));
             player.setRespawnPoint(Lobby.SPAWN_POINT);
         });
 
@@ -50,14 +61,51 @@ public class Main {
 
             queues.dequeue(player);
 
-            Game game = player.getTag(Game.GAME);
+            Game game = Game.GAMES.getByPlayer(player.getUuid());
             if (game != null) game.onDisconnect(player);
+
+            Game watching = player.getTag(Game.SPECTATING);
+            if (watching != null) watching.stopSpectating(player);
         });
 
         MinecraftServer.getSchedulerManager().buildTask(() -> Game.GAMES.forEach(Game::update))
                 .repeat(TaskSchedule.tick(1))
                 .schedule();
 
-        minecraftServer.start("0.0.0.0", 25565);
+        Startup.mark("setup");
+
+        // Warm up before binding, so the first players don't wait on chunk loads or the JIT. The lobby and game chunks
+        // load in the background while the physics warms up on this thread
+        CompletableFuture<Void> lobby = Lobby.preload();
+        CompletableFuture<Void> games = Game.preload();
+        Startup.mark("world");
+        Startup.prewarmPhysics();
+        Startup.mark("physics");
+        lobby.join();
+        Startup.mark("lobby");
+        games.join();
+        Startup.mark("games");
+
+        minecraftServer.start(System.getProperty("tower.address", "0.0.0.0"), Integer.getInteger("tower.port", 25565));
+        Startup.ready();
+    }
+
+    /**
+     * Picks the queue backend: in memory by default, or through a broker with {@code -Dtower.queueBackend=broker}.
+     * The broker is at {@code -Dtower.brokerAddress}:{@code -Dtower.brokerPort}, and is started in this process with
+     * {@code -Dtower.embeddedBroker=true}. {@code -Dtower.nodeName} must match this server's name in the proxy, and
+     * {@code -Dtower.nodeRole=lobby} keeps matches off this node.
+     */
+    private static QueueBackend createQueueBackend() throws IOException {
+        if (!"broker".equals(System.getProperty("tower.queueBackend"))) return new InMemoryQueueBackend();
+
+        final InetSocketAddress broker = new InetSocketAddress(
+                System.getProperty("tower.brokerAddress", "127.0.0.1"),
+                Integer.getInteger("tower.brokerPort", QueueBroker.DEFAULT_PORT));
+
+        if (Boolean.getBoolean("tower.embeddedBroker")) new QueueBroker(broker).start();
+
+        return new BrokerQueueBackend(broker, System.getProperty("tower.nodeName", "tower"),
+                !"lobby".equals(System.getProperty("tower.nodeRole")));
     }
-}
\ No newline at end of file
+}
@@ -2,50 +2,135 @@ package net.minestom.jam;
 
 import com.jme3.bullet.NativePhysicsObject;
 import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.collision.PhysicsCollisionObject;
+import com.jme3.bullet.collision.shapes.BoxCollisionShape;
+import com.jme3.bullet.collision.shapes.CapsuleCollisionShape;
+import com.jme3.bullet.joints.PhysicsJoint;
 import com.jme3.bullet.objects.PhysicsRigidBody;
 import com.jme3.math.Vector3f;
 import net.minestom.jam.objects.MinecraftPhysicsObject;
+import net.minestom.jam.profiling.TickPhase;
+import net.minestom.jam.profiling.TickProfiler;
+import net.minestom.jam.replay.ReplayRecorder;
+import net.minestom.server.coordinate.Point;
+import net.minestom.server.coordinate.Pos;
+import net.minestom.server.entity.Player;
 import net.minestom.server.instance.Instance;
 import net.minestom.server.tag.Tag;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 
 public class MinecraftPhysics {
 
-    private PhysicsSpace physicsSpace;
+    private @Nullable PhysicsPartitions partitions;
     private PhysicsRigidBody floor;
 
     public static final Tag<MinecraftPhysicsObject> PHYSICS_BLOCK_TAG = Tag.Transient("physicsblock");
     public static final Tag<PhysicsRigidBody> PLAYER_RIGID_BODY_TAG = Tag.Transient("playerrigidbody");
 
+    /**
+     * The viewable rule of every physics entity. Spectators are sent them by a {@link SpectatorFeed} instead.
+     */
+    public static final Predicate<Player> SPECTATOR_RULE = player -> !player.hasTag(Game.SPECTATING);
+
     private static final int KILL_HEIGHT = -10;
 
+    /**
+     * Players only collide with physics objects, never with each other.
+     */
+    private static final int PLAYER_COLLISION_GROUP = PhysicsCollisionObject.COLLISION_GROUP_02;
+    private static final float PLAYER_RADIUS = 0.3f;
+    private static final float PLAYER_HEIGHT = 1.8f;
+
     private final @NotNull List<MinecraftPhysicsObject> objects = new CopyOnWriteArrayList<>();
     private final @NotNull Map<NativePhysicsObject, MinecraftPhysicsObject> objectMap = new ConcurrentHashMap<>();
     private final Instance instance;
+    private final PhysicsResources resources = new PhysicsResources();
+    private @Nullable PhysicsRigidBody probe;
+    private final TickProfiler profiler;
+    private long lastStepNanos;
+    private int nextObjectId = 0;
+    private int interpolationTicks = 1;
+    private @Nullable ReplayRecorder recorder;
+
+    private final RaycastBatch raycasts = new RaycastBatch(this);
+    private final ContactCollector contacts = new ContactCollector(this);
+    private final RegionQuery regions = new RegionQuery(this);
+    private final List<MinecraftPhysicsObject> inRange = new ArrayList<>();
+    private final List<PlayerBody> players = new CopyOnWriteArrayList<>();
+    private @Nullable CapsuleCollisionShape playerShape;
+    private final Vector3f playerLocation = new Vector3f();
 
     public MinecraftPhysics(Instance instance) {
+        this(instance, new TickProfiler(-1));
+    }
+
+    public MinecraftPhysics(Instance instance, @NotNull TickProfiler profiler) {
+        this(instance, profiler, Float.parseFloat(System.getProperty("tower.physicsRegionSize", "0")));
+    }
+
+    /**
+     * @param regionSize the width of the square regions simulated in parallel, in blocks, or 0 for a single space.
+     *                   See {@link PhysicsPartitions}.
+     */
+    public MinecraftPhysics(Instance instance, @NotNull TickProfiler profiler, float regionSize) {
         this.instance = instance;
-        physicsSpace = new PhysicsSpace(PhysicsSpace.BroadphaseType.DBVT);
+        this.profiler = profiler;
+        this.partitions = new PhysicsPartitions(this, regionSize,
+                Float.parseFloat(System.getProperty("tower.physicsRegionMargin", "2")));
+    }
 
+    /**
+     * Sets up a new space of this world.
+     */
+    void configureSpace(@NotNull PhysicsSpace space) {
         // Default: -9.81f
         // Minecraft: -31.36f
-        physicsSpace.setGravity(new Vector3f(0, -17f, 0));
+        space.setGravity(new Vector3f(0, -17f, 0));
+        space.addContactListener(contacts, false, true, false);
     }
 
     public void update(float delta) {
-        if (physicsSpace == null) {
+        update(delta, true);
+    }
+
+    /**
+     * Steps the world.
+     *
+     * @param broadcast whether to sync the display entities to the new transforms, see {@link TickRates}
+     */
+    public void update(float delta, boolean broadcast) {
+        if (partitions == null) {
             System.out.println("PhysicsSpace is null!");
             return;
         }
 
-        physicsSpace.update(delta);
+        final int bodies = objects.size();
+
+        syncPlayers();
+
+        long start = profiler.start();
+        partitions.step(delta);
+        lastStepNanos = profiler.end(TickPhase.PHYSICS_STEP, start, bodies);
 
+        raycasts.resolve();
+        contacts.dispatch(instance);
+
+        if (!broadcast) {
+            for (MinecraftPhysicsObject object : objects) object.keepActive();
+            if (recorder != null) recorder.onFrame(objects);
+            return;
+        }
+
+        start = profiler.start();
         for (MinecraftPhysicsObject object : objects) {
             object.update();
 
@@ -55,6 +140,189 @@ public class MinecraftPhysics {
 //                removeObject(object);
 //            }
         }
+        profiler.end(TickPhase.OBJECT_SYNC, start, bodies);
+
+        if (recorder != null) recorder.onFrame(objects);
+    }
+
+    /**
+     * Gives a player a kinematic body that pushes physics objects around. It follows the player from then on.
+     */
+    public void addPlayer(@NotNull Player player) {
+        if (player.hasTag(PLAYER_RIGID_BODY_TAG)) return;
+
+        if (playerShape == null) {
+            playerShape = new CapsuleCollisionShape(PLAYER_RADIUS, PLAYER_HEIGHT - 2 * PLAYER_RADIUS);
+        }
+
+        final PhysicsRigidBody body = resources.body(new PhysicsRigidBody(playerShape, 1f));
+        body.setKinematic(true);
+        // Sleeping kinematic bodies don't wake what they touch
+        body.setEnableSleep(false);
+        body.setCollisionGroup(PLAYER_COLLISION_GROUP);
+        body.setCollideWithGroups(PhysicsCollisionObject.COLLISION_GROUP_01);
+        body.setUserObject(player);
+        body.setPhysicsLocation(playerCenter(player.getPosition(), playerLocation));
+        add(body);
+
+        player.setTag(PLAYER_RIGID_BODY_TAG, body);
+        players.add(new PlayerBody(player, body, player.getPosition()));
+    }
+
+    public void removePlayer(@NotNull Player player) {
+        final PhysicsRigidBody body = player.getTag(PLAYER_RIGID_BODY_TAG);
+        if (body == null) return;
+
+        player.removeTag(PLAYER_RIGID_BODY_TAG);
+        players.removeIf(playerBody -> playerBody.player == player);
+
+        remove(body);
+        resources.release(body);
+    }
+
+    /**
+     * Moves every player body to its player in one pass, right before the step. Players that haven't moved since the
+     * last tick are skipped, so standing still costs nothing on the native side.
+     */
+    private void syncPlayers() {
+        for (PlayerBody playerBody : players) {
+            final Pos position = playerBody.player.getPosition();
+            if (position.samePoint(playerBody.synced)) continue;
+
+            playerBody.body.setPhysicsLocation(playerCenter(position, playerLocation));
+            playerBody.synced = position;
+        }
+    }
+
+    private static @NotNull Vector3f playerCenter(@NotNull Pos position, @NotNull Vector3f store) {
+        return store.set((float) position.x(), (float) position.y() + PLAYER_HEIGHT / 2, (float) position.z());
+    }
+
+    private static final class PlayerBody {
+        private final Player player;
+        private final PhysicsRigidBody body;
+        private Pos synced;
+
+        private PlayerBody(@NotNull Player player, @NotNull PhysicsRigidBody body, @NotNull Pos synced) {
+            this.player = player;
+            this.body = body;
+            this.synced = synced;
+        }
+    }
+
+    /**
+     * Destroys every object and frees the physics space. The instance is left untouched.
+     */
+    public void destroy() {
+        if (partitions == null) return;
+
+        setRecorder(null);
+        raycasts.clear();
+        regions.clear();
+
+        for (MinecraftPhysicsObject object : objects) {
+            object.destroy();
+        }
+        for (PlayerBody playerBody : players) {
+            removePlayer(playerBody.player);
+        }
+
+        partitions.destroy();
+        partitions = null;
+        floor = null;
+        probe = null;
+        playerShape = null;
+
+        resources.releaseAll();
+    }
+
+    /**
+     * Adds every object overlapping a box to a buffer.
+     *
+     * @return the number of objects added
+     */
+    public int queryBox(@NotNull Point min, @NotNull Point max, @NotNull Collection<? super MinecraftPhysicsObject> out) {
+        return regions.box(min, max, out);
+    }
+
+    /**
+     * Adds every object overlapping a sphere to a buffer.
+     *
+     * @return the number of objects added
+     */
+    public int querySphere(@NotNull Point center, double radius, @NotNull Collection<? super MinecraftPhysicsObject> out) {
+        return regions.sphere(center, radius, out);
+    }
+
+    /**
+     * Pushes every object within a radius away from a point, e.g. for an explosion. The impulse falls off linearly
+     * to zero at the edge of the radius. Only the objects in range are looked at and woken up.
+     *
+     * @return the number of objects pushed
+     */
+    public int applyRadialImpulse(@NotNull Point center, double radius, float strength) {
+        inRange.clear();
+        querySphere(center, radius, inRange);
+
+        final Vector3f origin = CoordinateUtils.toVector3(center);
+        final Vector3f impulse = new Vector3f();
+        int pushed = 0;
+
+        for (MinecraftPhysicsObject object : inRange) {
+            object.getCollisionObject().getPhysicsLocation(impulse).subtractLocal(origin);
+
+            final float distance = impulse.length();
+            if (distance > radius) continue;
+
+            // Objects right at the center are pushed up
+            if (distance < 1e-4f) impulse.set(0, 1, 0);
+            else impulse.divideLocal(distance);
+
+            impulse.multLocal(strength * (1 - distance / (float) radius));
+            if (object.applyCentralImpulse(impulse)) pushed++;
+        }
+
+        inRange.clear();
+        return pushed;
+    }
+
+    /**
+     * Returns a tiny body, never added to the space, for overlap tests with {@link PhysicsSpace#pairTest}.
+     */
+    public @NotNull PhysicsRigidBody getProbe() {
+        if (probe == null) {
+            probe = resources.body(new PhysicsRigidBody(new BoxCollisionShape(0.01f), 1f));
+        }
+        return probe;
+    }
+
+    /**
+     * Returns how long the last {@link PhysicsSpace#update(float)} took, excluding the object sync.
+     */
+    public long getLastStepNanos() {
+        return lastStepNanos;
+    }
+
+    /**
+     * Returns the rays to resolve after the next step. Use this instead of testing rays against the space directly.
+     */
+    public @NotNull RaycastBatch getRaycasts() {
+        return raycasts;
+    }
+
+    /**
+     * Returns the contact collector, to configure which contacts are reported by {@link PhysicsContactsEvent}.
+     */
+    public @NotNull ContactCollector getContacts() {
+        return contacts;
+    }
+
+    public @NotNull TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    public @NotNull PhysicsResources getResources() {
+        return resources;
     }
 
     public @NotNull List<MinecraftPhysicsObject> getObjects() {
@@ -62,24 +330,101 @@ public class MinecraftPhysics {
     }
 
     public void addObject(MinecraftPhysicsObject object) {
+        if (objectMap.putIfAbsent(object.getCollisionObject(), object) != null) return;
         objects.add(object);
-        objectMap.put(object.getCollisionObject(), object);
     }
 
     public void removeObject(MinecraftPhysicsObject object) {
+        if (objectMap.remove(object.getCollisionObject()) == null) return;
         objects.remove(object);
-        objectMap.remove(object.getCollisionObject());
+
+        if (recorder != null) recorder.onDestroy(object);
+    }
+
+    /**
+     * Returns a new ID, unique within this physics world, for a physics object.
+     */
+    public int nextObjectId() {
+        return nextObjectId++;
+    }
+
+    /**
+     * Returns the number of physics objects created in this world so far, including removed ones.
+     */
+    public int getSpawnedObjectCount() {
+        return nextObjectId;
+    }
+
+    /**
+     * Returns how many client ticks display entities take to move to their new transform.
+     */
+    public int getInterpolationTicks() {
+        return interpolationTicks;
+    }
+
+    /**
+     * Sets the display interpolation, which should cover the time until the next broadcast.
+     */
+    public void setInterpolationTicks(int interpolationTicks) {
+        this.interpolationTicks = interpolationTicks;
     }
 
+    /**
+     * Records every step of this world to a replay, or stops recording if null. The previous recorder is closed.
+     */
+    public void setRecorder(@Nullable ReplayRecorder recorder) {
+        if (this.recorder != null) this.recorder.close();
+        this.recorder = recorder;
+    }
+
+    /**
+     * Returns the object a body belongs to, including the proxies of a partitioned world.
+     */
     public @Nullable MinecraftPhysicsObject getObjectByPhysicsObject(NativePhysicsObject physicsObject) {
-        return objectMap.get(physicsObject);
+        final MinecraftPhysicsObject object = objectMap.get(physicsObject);
+        if (object != null || partitions == null || !partitions.isPartitioned()) return object;
+
+        final PhysicsCollisionObject owner = partitions.ownerOf(physicsObject);
+        return owner != null ? objectMap.get(owner) : null;
+    }
+
+    /**
+     * Adds a body to the space of its region. Use this rather than adding to a space directly.
+     */
+    public void add(@NotNull PhysicsCollisionObject body) {
+        if (partitions != null) partitions.add(body);
+    }
+
+    /**
+     * Removes a body or joint from whichever space has it.
+     */
+    public void remove(@NotNull NativePhysicsObject object) {
+        if (partitions == null) return;
+
+        switch (object) {
+            case PhysicsCollisionObject body -> partitions.remove(body);
+            case PhysicsJoint joint -> partitions.remove(joint);
+            default -> {
+            }
+        }
     }
 
     public Instance getInstance() {
         return instance;
     }
 
+    /**
+     * Returns the physics space, or the first one if this world is partitioned. To add or remove bodies, use
+     * {@link #add} and {@link #remove}, which pick the right space.
+     */
     public PhysicsSpace getPhysicsSpace() {
-        return physicsSpace;
+        return partitions != null ? partitions.primary() : null;
+    }
+
+    /**
+     * Returns every physics space of this world, one per region if partitioned.
+     */
+    public @NotNull List<PhysicsSpace> getPhysicsSpaces() {
+        return partitions != null ? partitions.spaces() : List.of();
     }
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package net.minestom.jam;
+
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.math.Vector3f;
+import jme3utilities.minie.NativeLibrary;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Loads the Libbulletjme native library for the platform we're running on.
+ * <br>
+ * The platform artifacts ({@code Libbulletjme-Linux64}, {@code Libbulletjme-Windows64}...) ship the library as a
+ * classpath resource under {@code <os>/<arch>/com/github/stephengold/}. It's extracted to a temporary file and loaded
+ * from there. {@code -Dtower.nativeLibrary=<path>} loads a library from disk instead, e.g. a local debug build.
+ * <br>
+ * With the multithreaded build ({@code SpMtRelease}, the default in the build script), each space solves its
+ * constraints on {@code -Dtower.solverThreads} threads, half the cores by default. Single threaded builds always use
+ * one.
+ */
+public final class NativeLoader {
+
+    private static final String RESOURCE_PACKAGE = "com/github/stephengold/";
+
+    /**
+     * The bounds given to new spaces. The DBVT broadphase doesn't use them, but the constructor wants some.
+     */
+    private static final Vector3f WORLD_MIN = new Vector3f(-10_000, -10_000, -10_000);
+    private static final Vector3f WORLD_MAX = new Vector3f(10_000, 10_000, 10_000);
+
+    private static final int SOLVER_THREADS = Integer.getInteger("tower.solverThreads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static volatile boolean loaded;
+    private static volatile boolean multithreaded;
+
+    private NativeLoader() {
+    }
+
+    /**
+     * Loads the native library, once.
+     *
+     * @throws UnsupportedOperationException if there is no library for this platform on the classpath
+     */
+    public static synchronized void load() throws IOException {
+        if (loaded) return;
+
+        final String override = System.getProperty("tower.nativeLibrary");
+        if (override != null) {
+            System.load(Path.of(override).toAbsolutePath().toString());
+        } else {
+            final String os = osName();
+            final String arch = archName();
+            final String file = libraryName(os);
+
+            final String resource = os + "/" + arch + "/" + RESOURCE_PACKAGE + file;
+            try (InputStream in = NativeLoader.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new UnsupportedOperationException("No Libbulletjme native on the classpath for " + os
+                            + "/" + arch + " (" + resource + ")");
+                }
+
+                final Path temp = Files.createTempFile("bulletjme", file.substring(file.lastIndexOf('.')));
+                temp.toFile().deleteOnExit();
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                System.load(temp.toAbsolutePath().toString());
+            }
+        }
+
+        multithreaded = NativeLibrary.isThreadSafe();
+        loaded = true;
+
+        System.out.println("Loaded Libbulletjme " + NativeLibrary.versionNumber()
+                + (multithreaded ? " (multithreaded, " + solverThreads() + " solver threads)" : ""));
+    }
+
+    /**
+     * Returns whether the loaded library is a multithreaded build.
+     */
+    public static boolean isMultithreaded() {
+        return multithreaded;
+    }
+
+    /**
+     * Returns the number of solver threads given to each new space.
+     */
+    public static int solverThreads() {
+        return multithreaded ? SOLVER_THREADS : 1;
+    }
+
+    /**
+     * Creates a DBVT space with as many solvers as the native build supports.
+     */
+    public static @NotNull PhysicsSpace createSpace() {
+        return createSpace(solverThreads());
+    }
+
+    /**
+     * Creates a DBVT space with the given number of solvers, at most {@link #solverThreads()}.
+     */
+    public static @NotNull PhysicsSpace createSpace(int solvers) {
+        return new PhysicsSpace(WORLD_MIN, WORLD_MAX, PhysicsSpace.BroadphaseType.DBVT,
+                Math.clamp(solvers, 1, solverThreads()));
+    }
+
+    private static @NotNull String osName() {
+        final String name = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+
+        if (name.contains("linux")) return "linux";
+        if (name.contains("windows")) return "windows";
+        if (name.contains("mac") || name.contains("darwin")) return "osx";
+        throw new UnsupportedOperationException("Unsupported OS: " + name);
+    }
+
+    private static @NotNull String archName() {
+        final String arch = System.getProperty("os.arch").toLowerCase(Locale.ROOT);
+
+        return switch (arch) {
+            case "amd64", "x86_64" -> "x86-64";
+            case "aarch64", "arm64" -> "aarch64";
+            default -> throw new UnsupportedOperationException("Unsupported architecture: " + arch);
+        };
+    }
+
+    private static @NotNull String libraryName(@NotNull String os) {
+        return switch (os) {
+            case "windows" -> "bulletjme.dll";
+            case "osx" -> "libbulletjme.dylib";
+            default -> "libbulletjme.so";
+        };
+    }
+}
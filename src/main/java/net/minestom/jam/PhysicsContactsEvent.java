@@ -0,0 +1,30 @@
+package net.minestom.jam;
+
+import net.minestom.server.event.trait.InstanceEvent;
+import net.minestom.server.instance.Instance;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Called once per physics step with every new contact of that step, through the instance's event node.
+ * <br>
+ * The contacts are read straight from the collector's buffers, so they must not be kept past the listener.
+ */
+public final class PhysicsContactsEvent implements InstanceEvent {
+
+    private final Instance instance;
+    private final ContactCollector contacts;
+
+    public PhysicsContactsEvent(@NotNull Instance instance, @NotNull ContactCollector contacts) {
+        this.instance = instance;
+        this.contacts = contacts;
+    }
+
+    public @NotNull ContactCollector getContacts() {
+        return contacts;
+    }
+
+    @Override
+    public @NotNull Instance getInstance() {
+        return instance;
+    }
+}
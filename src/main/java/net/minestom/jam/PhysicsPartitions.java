@@ -0,0 +1,344 @@
+package net.minestom.jam;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.collision.PhysicsCollisionObject;
+import com.jme3.bullet.joints.PhysicsJoint;
+import com.jme3.bullet.objects.PhysicsRigidBody;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The physics spaces of one {@link MinecraftPhysics}.
+ * <br>
+ * By default there is a single space. With a region size, the arena is split into square columns of that size, each
+ * with its own space, created when a body first enters it and stepped alongside the others. Every body belongs
+ * to the region its center is in, and is handed off to another region after a step that moved it there. A rigid body
+ * within the margin of a neighbouring region also gets a proxy there: a kinematic (or static) copy that follows it, so
+ * bodies on both sides of a border still collide. Proxies push but can't be pushed, which is the price of stepping the
+ * regions independently.
+ * <br>
+ * Only one level of parallelism is used at a time. With a single threaded native build, regions are stepped in parallel
+ * on Java threads. With a multithreaded build, the library's own task scheduler is shared by every space and isn't
+ * reentrant, so regions are stepped one after another, each using the solver threads.
+ */
+final class PhysicsPartitions {
+
+    private static final ExecutorService STEPPERS = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            Thread.ofPlatform().name("physics-step-", 0).daemon().factory());
+
+    /**
+     * One region and its space.
+     */
+    static final class Partition {
+        private final long key;
+        private final PhysicsSpace space;
+
+        private Partition(long key, @NotNull PhysicsSpace space) {
+            this.key = key;
+            this.space = space;
+        }
+    }
+
+    private record Proxy(@NotNull Partition partition, @NotNull PhysicsRigidBody body) {
+    }
+
+    private final MinecraftPhysics physics;
+    private final float regionSize;
+    private final float margin;
+
+    private final Long2ObjectMap<Partition> byKey = new Long2ObjectOpenHashMap<>();
+    private final List<Partition> partitions = new ArrayList<>();
+    private final List<PhysicsSpace> spaces = new ArrayList<>();
+
+    private final Map<PhysicsCollisionObject, Partition> owners = new ConcurrentHashMap<>();
+    private final Map<PhysicsCollisionObject, List<Proxy>> proxies = new ConcurrentHashMap<>();
+    private final Map<PhysicsCollisionObject, PhysicsCollisionObject> proxyOwners = new ConcurrentHashMap<>();
+    private final Queue<PhysicsCollisionObject> pending = new ConcurrentLinkedQueue<>();
+
+    private final BoundingBox bounds = new BoundingBox();
+    private final Vector3f location = new Vector3f();
+    private final Vector3f min = new Vector3f();
+    private final Vector3f max = new Vector3f();
+    private final Quaternion rotation = new Quaternion();
+
+    /**
+     * @param regionSize the width of a region in blocks, or 0 for a single space
+     * @param margin     how close to a border, in blocks, a body gets a proxy on the other side
+     */
+    PhysicsPartitions(@NotNull MinecraftPhysics physics, float regionSize, float margin) {
+        this.physics = physics;
+        this.regionSize = regionSize;
+        this.margin = margin;
+
+        // The first space always exists, for tests that don't depend on a region
+        partition(0);
+    }
+
+    boolean isPartitioned() {
+        return regionSize > 0;
+    }
+
+    private @NotNull Partition partition(long key) {
+        Partition partition = byKey.get(key);
+        if (partition != null) return partition;
+
+        final PhysicsSpace space = physics.getResources().space(NativeLoader.createSpace(
+                parallelSteps() ? 1 : NativeLoader.solverThreads()));
+        physics.configureSpace(space);
+
+        partition = new Partition(key, space);
+        byKey.put(key, partition);
+        partitions.add(partition);
+        spaces.add(space);
+        return partition;
+    }
+
+    /**
+     * Returns whether regions are stepped in parallel on Java threads, rather than by the native solver.
+     */
+    private boolean parallelSteps() {
+        return isPartitioned() && !NativeLoader.isMultithreaded();
+    }
+
+    private long keyAt(float x, float z) {
+        if (!isPartitioned()) return 0;
+        return key((int) Math.floor(x / regionSize), (int) Math.floor(z / regionSize));
+    }
+
+    private static long key(int regionX, int regionZ) {
+        return ((long) regionX << 32) | (regionZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Adds a body. With regions, it is placed at the start of the next step, once its position is known.
+     */
+    void add(@NotNull PhysicsCollisionObject body) {
+        if (!isPartitioned()) {
+            partitions.getFirst().space.add(body);
+            owners.put(body, partitions.getFirst());
+        } else {
+            pending.add(body);
+        }
+    }
+
+    void remove(@NotNull PhysicsCollisionObject body) {
+        if (pending.remove(body)) return;
+
+        final Partition owner = owners.remove(body);
+        if (owner != null) owner.space.remove(body);
+        removeProxies(body);
+    }
+
+    /**
+     * Removes a joint from whichever space has it.
+     */
+    void remove(@NotNull PhysicsJoint joint) {
+        for (PhysicsSpace space : spaces) {
+            if (space.getJointList().contains(joint)) space.remove(joint);
+        }
+    }
+
+    /**
+     * Returns the body a proxy stands for, or null if it isn't a proxy.
+     */
+    @Nullable PhysicsCollisionObject ownerOf(@NotNull Object proxy) {
+        return proxyOwners.get(proxy);
+    }
+
+    /**
+     * Steps every space: places new bodies, moves proxies to their bodies, steps the spaces, then hands off
+     * the bodies that left their region.
+     */
+    void step(float delta) {
+        if (!isPartitioned()) {
+            partitions.getFirst().space.update(delta);
+            return;
+        }
+
+        PhysicsCollisionObject added;
+        while ((added = pending.poll()) != null) {
+            added.getPhysicsLocation(location);
+            final Partition partition = partition(keyAt(location.x, location.z));
+            partition.space.add(added);
+            owners.put(added, partition);
+            updateProxies(added, partition);
+        }
+
+        for (Map.Entry<PhysicsCollisionObject, Partition> entry : owners.entrySet()) {
+            if (entry.getKey().isActive()) updateProxies(entry.getKey(), entry.getValue());
+        }
+
+        stepParallel(delta);
+
+        for (Map.Entry<PhysicsCollisionObject, Partition> entry : owners.entrySet()) {
+            final PhysicsCollisionObject body = entry.getKey();
+            if (!body.isActive()) continue;
+
+            body.getPhysicsLocation(location);
+            final long key = keyAt(location.x, location.z);
+            if (key == entry.getValue().key) continue;
+
+            // Bodies keep their velocity when they change space
+            final Partition target = partition(key);
+            entry.getValue().space.remove(body);
+            target.space.add(body);
+            entry.setValue(target);
+            updateProxies(body, target);
+        }
+    }
+
+    private void stepParallel(float delta) {
+        final int count = partitions.size();
+        if (count == 1 || !parallelSteps()) {
+            for (Partition partition : partitions) partition.space.update(delta);
+            return;
+        }
+
+        final CompletableFuture<?>[] steps = new CompletableFuture[count - 1];
+        for (int i = 1; i < count; i++) {
+            final PhysicsSpace space = partitions.get(i).space;
+            steps[i - 1] = CompletableFuture.runAsync(() -> space.update(delta), STEPPERS);
+        }
+
+        // The calling thread takes a share of the work instead of waiting
+        partitions.getFirst().space.update(delta);
+        CompletableFuture.allOf(steps).join();
+    }
+
+    /**
+     * Creates, moves and removes the proxies of a body so that every region within the margin of its bounds has one.
+     */
+    private void updateProxies(@NotNull PhysicsCollisionObject body, @NotNull Partition owner) {
+        if (!(body instanceof PhysicsRigidBody rigidBody)) return;
+
+        body.boundingBox(bounds);
+        bounds.getMin(min);
+        bounds.getMax(max);
+
+        final int minX = (int) Math.floor((min.x - margin) / regionSize);
+        final int maxX = (int) Math.floor((max.x + margin) / regionSize);
+        final int minZ = (int) Math.floor((min.z - margin) / regionSize);
+        final int maxZ = (int) Math.floor((max.z + margin) / regionSize);
+
+        List<Proxy> current = proxies.get(body);
+        if (minX == maxX && minZ == maxZ) {
+            // Entirely inside its own region
+            if (current != null) removeProxies(body);
+            return;
+        }
+        if (current == null) {
+            current = new ArrayList<>(3);
+            proxies.put(body, current);
+        }
+
+        // Drop proxies in regions it no longer reaches
+        current.removeIf(proxy -> {
+            final int regionX = (int) (proxy.partition.key >> 32);
+            final int regionZ = (int) proxy.partition.key;
+            if (proxy.partition != owner && regionX >= minX && regionX <= maxX && regionZ >= minZ && regionZ <= maxZ) {
+                return false;
+            }
+
+            releaseProxy(proxy);
+            return true;
+        });
+
+        body.getPhysicsLocation(location);
+        rigidBody.getPhysicsRotation(rotation);
+
+        for (int regionX = minX; regionX <= maxX; regionX++) {
+            for (int regionZ = minZ; regionZ <= maxZ; regionZ++) {
+                final long key = key(regionX, regionZ);
+                if (key == owner.key) continue;
+
+                Proxy proxy = null;
+                for (Proxy existing : current) {
+                    if (existing.partition.key == key) {
+                        proxy = existing;
+                        break;
+                    }
+                }
+                if (proxy == null) {
+                    proxy = createProxy(rigidBody, partition(key));
+                    current.add(proxy);
+                }
+
+                proxy.body.setPhysicsLocation(location);
+                proxy.body.setPhysicsRotation(rotation);
+            }
+        }
+    }
+
+    private @NotNull Proxy createProxy(@NotNull PhysicsRigidBody body, @NotNull Partition partition) {
+        final boolean dynamic = body.getMass() > 0;
+
+        final PhysicsRigidBody copy = physics.getResources().body(new PhysicsRigidBody(body.getCollisionShape(),
+                dynamic ? body.getMass() : PhysicsRigidBody.massForStatic));
+        if (dynamic) {
+            copy.setKinematic(true);
+            copy.setEnableSleep(false);
+        }
+        copy.setCollisionGroup(body.getCollisionGroup());
+        copy.setCollideWithGroups(body.getCollideWithGroups());
+        copy.setUserObject(body.getUserObject());
+
+        partition.space.add(copy);
+        proxyOwners.put(copy, body);
+        return new Proxy(partition, copy);
+    }
+
+    private void removeProxies(@NotNull PhysicsCollisionObject body) {
+        final List<Proxy> removed = proxies.remove(body);
+        if (removed == null) return;
+
+        for (Proxy proxy : removed) releaseProxy(proxy);
+    }
+
+    private void releaseProxy(@NotNull Proxy proxy) {
+        proxy.partition.space.remove(proxy.body);
+        proxyOwners.remove(proxy.body);
+        physics.getResources().release(proxy.body);
+    }
+
+    /**
+     * Returns the first space, which always exists. The only one unless partitioned.
+     */
+    @NotNull PhysicsSpace primary() {
+        return partitions.getFirst().space;
+    }
+
+    /**
+     * Returns every space, in creation order.
+     */
+    @NotNull List<PhysicsSpace> spaces() {
+        return spaces;
+    }
+
+    void destroy() {
+        for (Partition partition : partitions) partition.space.destroy();
+
+        partitions.clear();
+        spaces.clear();
+        byKey.clear();
+        owners.clear();
+        proxies.clear();
+        proxyOwners.clear();
+        pending.clear();
+    }
+}
@@ -0,0 +1,145 @@
+package net.minestom.jam;
+
+import com.jme3.bullet.NativePhysicsObject;
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.collision.PhysicsCollisionObject;
+import com.jme3.bullet.collision.shapes.CollisionShape;
+import com.jme3.bullet.joints.PhysicsJoint;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the native Bullet objects owned by one {@link MinecraftPhysics}.
+ * <br>
+ * Libbulletjme frees native memory once the Java wrapper becomes unreachable, so anything still referenced (from a
+ * space, a tag, a map...) leaks. Every space, body, shape and joint created for a game goes through here, and
+ * {@link #releaseAll()} drops them all when the game ends. Shapes are reference counted, since they can be shared.
+ */
+public final class PhysicsResources {
+
+    private static final AtomicInteger LIVE_SPACES = new AtomicInteger();
+    private static final AtomicInteger LIVE_BODIES = new AtomicInteger();
+    private static final AtomicInteger LIVE_SHAPES = new AtomicInteger();
+    private static final AtomicInteger LIVE_JOINTS = new AtomicInteger();
+
+    /**
+     * A count of live native objects.
+     */
+    public record Counts(int spaces, int bodies, int shapes, int joints) {
+    }
+
+    private final Set<PhysicsSpace> spaces = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<PhysicsCollisionObject> bodies = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<CollisionShape, Integer> shapes = new IdentityHashMap<>();
+    private final Set<PhysicsJoint> joints = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Returns the number of live native objects across every game.
+     */
+    public static @NotNull Counts globalCounts() {
+        return new Counts(LIVE_SPACES.get(), LIVE_BODIES.get(), LIVE_SHAPES.get(), LIVE_JOINTS.get());
+    }
+
+    /**
+     * Returns the number of live native objects owned by this game.
+     */
+    public synchronized @NotNull Counts counts() {
+        return new Counts(spaces.size(), bodies.size(), shapes.size(), joints.size());
+    }
+
+    public synchronized <T extends PhysicsSpace> @NotNull T space(@NotNull T space) {
+        if (spaces.add(space)) LIVE_SPACES.incrementAndGet();
+        return space;
+    }
+
+    /**
+     * Tracks a collision object along with its current shape.
+     */
+    public synchronized <T extends PhysicsCollisionObject> @NotNull T body(@NotNull T body) {
+        if (bodies.add(body)) {
+            LIVE_BODIES.incrementAndGet();
+            shape(body.getCollisionShape());
+        }
+        return body;
+    }
+
+    public synchronized <T extends CollisionShape> @NotNull T shape(@NotNull T shape) {
+        if (shapes.merge(shape, 1, Integer::sum) == 1) LIVE_SHAPES.incrementAndGet();
+        return shape;
+    }
+
+    public synchronized <T extends PhysicsJoint> @NotNull T joint(@NotNull T joint) {
+        if (joints.add(joint)) LIVE_JOINTS.incrementAndGet();
+        return joint;
+    }
+
+    /**
+     * Swaps the shape of a tracked body, releasing the old one.
+     */
+    public synchronized void setShape(@NotNull PhysicsCollisionObject body, @NotNull CollisionShape shape) {
+        final CollisionShape old = body.getCollisionShape();
+        if (old == shape) return;
+
+        shape(shape);
+        body.setCollisionShape(shape);
+        releaseShape(old);
+    }
+
+    /**
+     * Stops tracking an object that was removed from its space. Bodies also release their shape.
+     */
+    public synchronized void release(@NotNull NativePhysicsObject object) {
+        switch (object) {
+            case PhysicsCollisionObject body -> {
+                if (bodies.remove(body)) {
+                    LIVE_BODIES.decrementAndGet();
+                    releaseShape(body.getCollisionShape());
+                }
+            }
+            case PhysicsJoint joint -> {
+                if (joints.remove(joint)) LIVE_JOINTS.decrementAndGet();
+            }
+            case CollisionShape shape -> releaseShape(shape);
+            case PhysicsSpace space -> {
+                if (spaces.remove(space)) LIVE_SPACES.decrementAndGet();
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void releaseShape(@NotNull CollisionShape shape) {
+        final Integer count = shapes.get(shape);
+        if (count == null) return;
+
+        if (count == 1) {
+            shapes.remove(shape);
+            LIVE_SHAPES.decrementAndGet();
+        } else {
+            shapes.put(shape, count - 1);
+        }
+    }
+
+    /**
+     * Drops every tracked object. The spaces should already be destroyed, so nothing native references them anymore.
+     */
+    public synchronized void releaseAll() {
+        LIVE_SPACES.addAndGet(-spaces.size());
+        LIVE_BODIES.addAndGet(-bodies.size());
+        LIVE_SHAPES.addAndGet(-shapes.size());
+        LIVE_JOINTS.addAndGet(-joints.size());
+
+        spaces.clear();
+        bodies.clear();
+        shapes.clear();
+        joints.clear();
+
+        // Frees whatever the garbage collector has already found unreachable
+        NativePhysicsObject.freeUnusedObjects();
+    }
+}
@@ -7,6 +7,11 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
+import net.minestom.jam.metrics.TowerMetrics;
+import net.minestom.jam.profiling.TickPhase;
+import net.minestom.jam.profiling.TickProfiler;
+import net.minestom.jam.queue.InMemoryQueueBackend;
+import net.minestom.jam.queue.QueueBackend;
 import net.minestom.server.MinecraftServer;
 import net.minestom.server.adventure.audience.PacketGroupingAudience;
 import net.minestom.server.command.CommandManager;
@@ -25,6 +30,10 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -54,18 +63,79 @@ public record Queue(@NotNull Set<UUID> players, boolean isPrivate) implements Pa
      * Public queues are joined automatically when a player tries to queue with {@code /queue}. If there doesn't exist one,
      * it will be created. Private queues ("parties") can never be joined automatically, and are created with {@code
      * /party}. Both queues allow {@code /invite <username(s)>}, where the player can invite any number of users.
+     * <br>
+     * Once a queue is full, its {@link QueueBackend} decides which server the game is played on. Players sent to another
+     * server are moved through the proxy's BungeeCord channel, which has to be enabled in Velocity.
+     * <br>
+     * Games only start here when {@link AdmissionControl} has room for them. Until then, full queues wait in line and
+     * are told their position; they're offered to the backend once in case another node has room.
      */
     public static class Manager {
 
+        /**
+         * How long a match sent here by another node waits for its players to arrive.
+         */
+        private static final long REMOTE_MATCH_TIMEOUT_MS = 15_000;
+
+        /**
+         * How often, in seconds, waiting queues are reminded of their position.
+         */
+        private static final int WAITING_MESSAGE_INTERVAL = 5;
+
         private final List<Queue> privateQueues, publicQueues;
         private final Map<UUID, Queue> queueMembership;
         private final Object2LongMap<Pair<UUID, UUID>> invites;
+        private final Object2LongMap<UUID> joinTimes;
+        private final QueueBackend backend;
+        private final AdmissionControl admission;
+        private final Set<Queue> routed;
+        private final Set<Queue> starting;
 
         public Manager() {
+            this(new InMemoryQueueBackend());
+        }
+
+        public Manager(@NotNull QueueBackend backend) {
+            this(backend, true);
+        }
+
+        /**
+         * Creates a manager on the in-memory backend that isn't hooked to the server: admission isn't sampled, and no
+         * load is reported. For benchmarking the bookkeeping on its own.
+         */
+        static @NotNull Manager detached() {
+            return new Manager(new InMemoryQueueBackend(), false);
+        }
+
+        private Manager(@NotNull QueueBackend backend, boolean install) {
             this.privateQueues = new ArrayList<>();
             this.publicQueues = new ArrayList<>();
             this.queueMembership = new HashMap<>();
             this.invites = new Object2LongOpenHashMap<>();
+            this.joinTimes = new Object2LongOpenHashMap<>();
+            this.backend = backend;
+            this.admission = new AdmissionControl();
+            this.routed = Collections.newSetFromMap(new IdentityHashMap<>());
+            this.starting = Collections.newSetFromMap(new IdentityHashMap<>());
+
+            if (!install) return;
+
+            admission.install();
+            backend.onRemoteMatch(players ->
+                    MinecraftServer.getSchedulerManager().scheduleNextTick(() -> startWhenOnline(players)));
+
+            MinecraftServer.getSchedulerManager().buildTask(() -> backend.reportLoad(Game.GAMES.size(),
+                            MinecraftServer.getConnectionManager().getOnlinePlayerCount(), !admission.isSaturated()))
+                    .repeat(TaskSchedule.seconds(1))
+                    .schedule();
+        }
+
+        public @NotNull QueueBackend getBackend() {
+            return backend;
+        }
+
+        public @NotNull AdmissionControl getAdmission() {
+            return admission;
         }
 
 
@@ -112,22 +182,33 @@ public record Queue(@NotNull Set<UUID> players, boolean isPrivate) implements Pa
         }
 
         public @Nullable Queue dequeue(@NotNull Player player) {
-            final UUID uuid = player.getUuid();
-
-            final Queue queue = getQueue(uuid);
+            final Queue queue = dequeue(player.getUuid());
 
             if (queue == null) return null;
 
-            // Remove the player internally
-            queueMembership.remove(uuid);
-            queue.players().remove(uuid);
-
             // Send messages to every other player on the team
             queue.sendMessage(PLAYER_LEFT_QUEUE.apply(player.getUsername()).append(queue.memberCount()));
 
             return queue;
         }
 
+        /**
+         * Removes a player from their queue without sending any messages, discarding the queue if it becomes empty.
+         */
+        public @Nullable Queue dequeue(@NotNull UUID uuid) {
+            final Queue queue = queueMembership.remove(uuid);
+
+            if (queue == null) return null;
+
+            joinTimes.removeLong(uuid);
+            queue.players().remove(uuid);
+            if (queue.players().isEmpty()) {
+                (queue.isPrivate ? privateQueues : publicQueues).remove(queue);
+            }
+
+            return queue;
+        }
+
         public boolean invitePlayers(@NotNull Player inviter, @NotNull Set<Player> invitees) {
             final UUID uuid = inviter.getUuid();
             final Queue queue = getQueue(uuid);
@@ -155,18 +236,12 @@ public record Queue(@NotNull Set<UUID> players, boolean isPrivate) implements Pa
                 return false;
             }
 
-            long currentTime = System.currentTimeMillis();
-
-            var key = Pair.of(inviter.getUuid(), invitee.getUuid());
-            long lastInvite = invites.getLong(key);
-
-            if (currentTime - lastInvite > INVITE_EXPIRE_AFTER_MS) {
+            if (invite(inviter.getUuid(), invitee.getUuid())) {
                 String name = inviter.getUsername();
 
                 invitee.sendMessage((queue.isPrivate ? INVITED_PRIVATE_QUEUE : INVITED_PUBLIC_QUEUE).apply(name));
                 invitee.sendMessage(CLICK_TO_ACCEPT_INVITE.apply(name));
 
-                invites.put(key, currentTime);
                 return true;
             } else {
                 inviter.sendMessage(ALREADY_INVITED.apply(invitee.getUsername()));
@@ -174,6 +249,23 @@ public record Queue(@NotNull Set<UUID> players, boolean isPrivate) implements Pa
             }
         }
 
+        /**
+         * Records an invite without sending any messages.
+         *
+         * @return false if the inviter already has a pending invite to the invitee
+         */
+        public boolean invite(@NotNull UUID inviter, @NotNull UUID invitee) {
+            long currentTime = System.currentTimeMillis();
+
+            var key = Pair.of(inviter, invitee);
+            long lastInvite = invites.getLong(key);
+
+            if (currentTime - lastInvite <= INVITE_EXPIRE_AFTER_MS) return false;
+
+            invites.put(key, currentTime);
+            return true;
+        }
+
         public boolean acceptWithMessages(@NotNull Player player, @NotNull Player allegedInviter) {
             var pair = Pair.of(allegedInviter.getUuid(), player.getUuid());
             long lastInvite = invites.getLong(pair);
@@ -184,7 +276,7 @@ public record Queue(@NotNull Set<UUID> players, boolean isPrivate) implements Pa
                 player.sendMessage(INVITE_HAS_EXPIRED.apply(allegedInviter.getUsername()));
             } else if (isQueued(player.getUuid())) {
                 player.sendMessage(ALREADY_QUEUED);
-            } else if (!isQueued(allegedInviter.getUuid())) {
+            } else if (!isQueued(allegedInviter.getUuid()) || starting.contains(getQueue(allegedInviter.getUuid()))) {
                 player.sendMessage(INVITER_IS_NOT_QUEUED.apply(allegedInviter.getUsername()));
             } else {
                 invites.removeLong(pair);
@@ -200,6 +292,13 @@ public record Queue(@NotNull Set<UUID> players, boolean isPrivate) implements Pa
             return false;
         }
 
+        /**
+         * Returns the number of players in any queue.
+         */
+        public int queuedPlayerCount() {
+            return queueMembership.size();
+        }
+
         /***
          * Returns whether or not the given player is currently queued.
          */
@@ -246,34 +345,181 @@ public record Queue(@NotNull Set<UUID> players, boolean isPrivate) implements Pa
         private void addToQueue(@NotNull Queue queue, @NotNull UUID player) {
             queue.players().add(player);
             queueMembership.put(player, queue);
+            joinTimes.put(player, System.nanoTime());
 
             if (queue.players().size() < MAX_SIZE) return;
 
             AtomicInteger counter = new AtomicInteger(GAME_START_DELAY + 1); // one second before actually starting
             MinecraftServer.getSchedulerManager().submitTask(() -> {
-                if (queue.players().size() < MAX_SIZE) return TaskSchedule.stop();
+                final long start = TickProfiler.GLOBAL.start();
+                final TaskSchedule schedule = countdown(queue, counter);
+                TickProfiler.GLOBAL.end(TickPhase.QUEUE_COUNTDOWN, start, 0);
+                return schedule;
+            }, ExecutionType.TICK_END);
+        }
 
-                int time = counter.getAndDecrement();
-                if (time > GAME_START_DELAY) return TaskSchedule.seconds(1);
+        /**
+         * Runs one step of a full queue's countdown, starting the game when it reaches zero.
+         */
+        private @NotNull TaskSchedule countdown(@NotNull Queue queue, @NotNull AtomicInteger counter) {
+            if (queue.players().size() < MAX_SIZE) {
+                // Someone left while waiting; the queue starts over once it's full again
+                admission.forget(queue);
+                routed.remove(queue);
+                return TaskSchedule.stop();
+            }
+
+            int time = counter.getAndDecrement();
+            if (time > GAME_START_DELAY) return TaskSchedule.seconds(1);
+
+            if (time > 0) {
+                queue.sendMessage(GAME_STARTING_IN.apply(time));
+                return TaskSchedule.seconds(1);
+            }
 
-                if (time > 0) {
-                    queue.sendMessage(GAME_STARTING_IN.apply(time));
-                    return TaskSchedule.seconds(1);
+            if (!admission.tryAdmit(queue)) {
+                if (-time % WAITING_MESSAGE_INTERVAL == 0) {
+                    queue.sendMessage(WAITING_FOR_GAME.apply(admission.position(queue)));
+                    if (routed.add(queue)) routeElsewhere(queue);
                 }
+                return TaskSchedule.seconds(1);
+            }
 
-                // Start a new game
-                queue.sendMessage(STARTING_GAME);
-                new Game(queue.players());
+            // Start a new game, here or wherever the backend puts it. The players stay queued until it's placed, so
+            // they can't join another queue in the meantime; if someone left by then, the rest wait for a new player.
+            queue.sendMessage(STARTING_GAME);
+            backend.place(markStarting(queue)).thenAccept(server ->
+                    MinecraftServer.getSchedulerManager().scheduleNextTick(() -> {
+                        if (queue.players().size() < MAX_SIZE) {
+                            requeue(queue);
+                            return;
+                        }
+
+                        final Set<UUID> players = release(queue);
+                        if (server == null) new Game(players);
+                        else transfer(players, server);
+                    }));
+
+            return TaskSchedule.stop();
+        }
 
-                // Remove the queue
-                (queue.isPrivate ? privateQueues : publicQueues).remove(queue);
-                for (UUID member : queue.players()) {
-                    queueMembership.remove(member);
+        /**
+         * Asks the backend whether another node can take a queue this node has no room for. If it answers with this
+         * node, the queue keeps waiting here and asks again with its next position message.
+         */
+        private void routeElsewhere(@NotNull Queue queue) {
+            backend.place(Set.copyOf(queue.players())).thenAccept(server ->
+                    MinecraftServer.getSchedulerManager().scheduleNextTick(() -> {
+                        routed.remove(queue);
+                        if (server == null) return;
+
+                        // It may have started here or lost a player in the meantime
+                        if (queue.players().size() < MAX_SIZE || admission.position(queue) == 0) return;
+
+                        admission.forget(queue);
+                        queue.sendMessage(STARTING_GAME);
+                        markStarting(queue);
+                        transfer(release(queue), server);
+                    }));
+        }
+
+        /**
+         * Marks a queue whose game is starting, so nobody else can join it, and returns its players. They stay queued
+         * until {@link #release(Queue)}.
+         */
+        private @NotNull Set<UUID> markStarting(@NotNull Queue queue) {
+            final Set<UUID> players = Set.copyOf(queue.players());
+
+            (queue.isPrivate ? privateQueues : publicQueues).remove(queue);
+            starting.add(queue);
+
+            final long now = System.nanoTime();
+            for (UUID member : players) {
+                TowerMetrics.QUEUE_WAIT.record(now - joinTimes.removeLong(member));
+            }
+
+            return players;
+        }
+
+        /**
+         * Removes a starting queue once its game has been placed, and returns the players still in it.
+         */
+        private @NotNull Set<UUID> release(@NotNull Queue queue) {
+            final Set<UUID> players = Set.copyOf(queue.players());
+
+            starting.remove(queue);
+            for (UUID member : players) {
+                queueMembership.remove(member);
+            }
+            queue.players().clear(); // Clear queue just in case
+
+            return players;
+        }
+
+        /**
+         * Puts a starting queue that lost a player back with the others, so it starts over once it's full again.
+         */
+        private void requeue(@NotNull Queue queue) {
+            starting.remove(queue);
+            if (queue.players().isEmpty()) return;
+
+            (queue.isPrivate ? privateQueues : publicQueues).add(queue);
+
+            final long now = System.nanoTime();
+            for (UUID member : queue.players()) {
+                joinTimes.put(member, now);
+            }
+            queue.sendMessage(GAME_START_CANCELLED.append(queue.memberCount()));
+        }
+
+        /**
+         * Asks the proxy to move every player of a match to another server.
+         */
+        private static void transfer(@NotNull Set<UUID> players, @NotNull String server) {
+            final byte[] message;
+            try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                 DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeUTF("Connect");
+                out.writeUTF(server);
+                out.flush();
+                message = bytes.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            for (UUID uuid : players) {
+                final Player player = MinecraftServer.getConnectionManager().getOnlinePlayerByUuid(uuid);
+                if (player != null) player.sendPluginMessage("bungeecord:main", message);
+            }
+        }
+
+        /**
+         * Starts a match sent here by another node once all of its players have arrived. If some are still missing
+         * after {@link #REMOTE_MATCH_TIMEOUT_MS}, the match is called off, and the players who made it are told and put
+         * back in a public queue.
+         */
+        private void startWhenOnline(@NotNull Set<UUID> players) {
+            final long deadline = System.currentTimeMillis() + REMOTE_MATCH_TIMEOUT_MS;
+
+            MinecraftServer.getSchedulerManager().submitTask(() -> {
+                final List<Player> arrived = new ArrayList<>();
+                for (UUID uuid : players) {
+                    final Player player = MinecraftServer.getConnectionManager().getOnlinePlayerByUuid(uuid);
+                    if (player != null && !player.hasTag(Game.GAME)) arrived.add(player);
+                }
+
+                if (arrived.size() == players.size()) {
+                    new Game(players);
+                    return TaskSchedule.stop();
                 }
-                queue.players().clear(); // Clear queue just in case
+                if (System.currentTimeMillis() <= deadline) return TaskSchedule.tick(10);
 
+                for (Player player : arrived) {
+                    player.sendMessage(REMOTE_MATCH_CANCELLED);
+                    joinPublicQueueWithMessages(player);
+                }
                 return TaskSchedule.stop();
-            }, ExecutionType.TICK_END);
+            });
         }
     }
 
@@ -583,11 +829,28 @@ public record Queue(@NotNull Set<UUID> players, boolean isPrivate) implements Pa
             Component.text(seconds != 1 ? " seconds!" : " second!", NamedTextColor.GRAY)
     );
 
+    private static final IntFunction<Component> WAITING_FOR_GAME = position -> Component.textOfChildren(
+            Component.text("[!]", NamedTextColor.YELLOW, TextDecoration.BOLD),
+            Component.text(" Every game is full! You are ", NamedTextColor.GRAY),
+            Component.text("#" + position, NamedTextColor.WHITE),
+            Component.text(" in line.", NamedTextColor.GRAY)
+    );
+
     private static final Component STARTING_GAME = Component.textOfChildren(
             Component.text("[!]", NamedTextColor.GREEN, TextDecoration.BOLD),
             Component.text(" Starting game!", NamedTextColor.GRAY)
     );
 
+    private static final Component GAME_START_CANCELLED = Component.textOfChildren(
+            Component.text("[!]", NamedTextColor.RED, TextDecoration.BOLD),
+            Component.text(" Someone left before the game started, so you're back in the queue!", NamedTextColor.RED)
+    );
+
+    private static final Component REMOTE_MATCH_CANCELLED = Component.textOfChildren(
+            Component.text("[!]", NamedTextColor.RED, TextDecoration.BOLD),
+            Component.text(" Not everyone made it to your game, so you were put back in the queue!", NamedTextColor.RED)
+    );
+
     private static final Component CANNOT_QUEUE_IN_GAME = Component.textOfChildren(
             Component.text("[!]", NamedTextColor.RED, TextDecoration.BOLD),
             Component.text(" You cannot run any queue commands as you are in a game!", NamedTextColor.RED)
@@ -0,0 +1,135 @@
+package net.minestom.jam;
+
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.collision.PhysicsRayTestResult;
+import com.jme3.math.Vector3f;
+import net.minestom.jam.objects.MinecraftPhysicsObject;
+import net.minestom.server.coordinate.Point;
+import net.minestom.server.coordinate.Vec;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Rays submitted during a tick, resolved together against the physics space right after its step.
+ * <br>
+ * Event handlers never call into Bullet themselves; they only append to a flat array here. Each resolved ray is
+ * mapped back to the nearest {@link MinecraftPhysicsObject} it hits, ignoring anything else (players, platforms...).
+ * Must only be used from the game's tick thread.
+ */
+public final class RaycastBatch {
+
+    /**
+     * The nearest object hit by a ray.
+     *
+     * @param point    where the ray hit, in world space
+     * @param fraction how far along the ray the hit is, between 0 and 1
+     */
+    public record Hit(@NotNull MinecraftPhysicsObject object, @NotNull Vec point, float fraction) {
+    }
+
+    private static final int STRIDE = 6;
+
+    private final MinecraftPhysics physics;
+
+    private float[] rays = new float[STRIDE * 16];
+    @SuppressWarnings("unchecked")
+    private Consumer<@Nullable Hit>[] callbacks = new Consumer[16];
+    private int count = 0;
+
+    private final List<PhysicsRayTestResult> results = new ArrayList<>();
+    private final Vector3f from = new Vector3f();
+    private final Vector3f to = new Vector3f();
+
+    RaycastBatch(@NotNull MinecraftPhysics physics) {
+        this.physics = physics;
+    }
+
+    /**
+     * Queues a ray from a point along a direction. The callback is called after the next step, with null on a miss.
+     */
+    public void submit(@NotNull Point origin, @NotNull Vec direction, double distance, @NotNull Consumer<@Nullable Hit> callback) {
+        final Vec end = direction.normalize().mul(distance).add(origin);
+
+        if (count == callbacks.length) {
+            rays = Arrays.copyOf(rays, rays.length * 2);
+            callbacks = Arrays.copyOf(callbacks, callbacks.length * 2);
+        }
+
+        final int base = count * STRIDE;
+        rays[base] = (float) origin.x();
+        rays[base + 1] = (float) origin.y();
+        rays[base + 2] = (float) origin.z();
+        rays[base + 3] = (float) end.x();
+        rays[base + 4] = (float) end.y();
+        rays[base + 5] = (float) end.z();
+        callbacks[count++] = callback;
+    }
+
+    public int pendingCount() {
+        return count;
+    }
+
+    /**
+     * Tests every queued ray and calls their callbacks. Called by {@link MinecraftPhysics#update(float)}.
+     */
+    void resolve() {
+        // Callbacks may submit more rays; those wait for the next tick
+        final int resolving = count;
+        for (int i = 0; i < resolving; i++) {
+            final int base = i * STRIDE;
+            from.set(rays[base], rays[base + 1], rays[base + 2]);
+            to.set(rays[base + 3], rays[base + 4], rays[base + 5]);
+
+            MinecraftPhysicsObject nearest = null;
+            float nearestFraction = Float.MAX_VALUE;
+            for (PhysicsSpace space : physics.getPhysicsSpaces()) {
+                space.rayTestRaw(from, to, results);
+
+                for (PhysicsRayTestResult result : results) {
+                    if (result.getHitFraction() >= nearestFraction) continue;
+
+                    final MinecraftPhysicsObject object = physics.getObjectByPhysicsObject(result.getCollisionObject());
+                    if (object == null) continue;
+
+                    nearest = object;
+                    nearestFraction = result.getHitFraction();
+                }
+            }
+
+            final Consumer<@Nullable Hit> callback = callbacks[i];
+            callbacks[i] = null;
+
+            if (nearest == null) {
+                callback.accept(null);
+            } else {
+                final float t = nearestFraction;
+                callback.accept(new Hit(nearest, new Vec(
+                        from.x + (to.x - from.x) * t,
+                        from.y + (to.y - from.y) * t,
+                        from.z + (to.z - from.z) * t
+                ), t));
+            }
+        }
+
+        // Keep whatever was submitted by the callbacks
+        final int remaining = count - resolving;
+        System.arraycopy(rays, resolving * STRIDE, rays, 0, remaining * STRIDE);
+        System.arraycopy(callbacks, resolving, callbacks, 0, remaining);
+        Arrays.fill(callbacks, remaining, count, null);
+        count = remaining;
+        results.clear();
+    }
+
+    /**
+     * Drops every queued ray without calling back.
+     */
+    void clear() {
+        Arrays.fill(callbacks, 0, count, null);
+        count = 0;
+    }
+}
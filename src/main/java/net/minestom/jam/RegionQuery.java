@@ -0,0 +1,97 @@
+package net.minestom.jam;
+
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.collision.PhysicsCollisionEvent;
+import com.jme3.bullet.collision.PhysicsCollisionListener;
+import com.jme3.bullet.collision.PhysicsCollisionObject;
+import com.jme3.bullet.collision.shapes.BoxCollisionShape;
+import com.jme3.bullet.collision.shapes.SphereCollisionShape;
+import com.jme3.bullet.objects.PhysicsGhostObject;
+import com.jme3.math.Vector3f;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minestom.jam.objects.MinecraftPhysicsObject;
+import net.minestom.server.coordinate.Point;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Finds the physics objects overlapping a box or a sphere, for {@link MinecraftPhysics}.
+ * <br>
+ * A ghost object, never added to the space, is moved over the region and tested with
+ * {@link com.jme3.bullet.CollisionSpace#contactTest} in every space, which walks the DBVT broadphase first. Only bodies whose bounds
+ * overlap the region reach the narrowphase, so a query costs in proportion to what's in range.
+ */
+final class RegionQuery implements PhysicsCollisionListener {
+
+    private final MinecraftPhysics physics;
+
+    private PhysicsGhostObject box;
+    private PhysicsGhostObject sphere;
+    private final Vector3f scale = new Vector3f();
+    private final Vector3f location = new Vector3f();
+
+    private final Set<MinecraftPhysicsObject> seen = new ReferenceOpenHashSet<>();
+    private Collection<? super MinecraftPhysicsObject> out;
+
+    RegionQuery(@NotNull MinecraftPhysics physics) {
+        this.physics = physics;
+    }
+
+    int box(@NotNull Point min, @NotNull Point max, @NotNull Collection<? super MinecraftPhysicsObject> out) {
+        if (box == null) {
+            // Half extents of 1, scaled to the requested size
+            box = physics.getResources().body(new PhysicsGhostObject(new BoxCollisionShape(1f)));
+        }
+
+        scale.set((float) (max.x() - min.x()) / 2, (float) (max.y() - min.y()) / 2, (float) (max.z() - min.z()) / 2);
+        box.getCollisionShape().setScale(scale);
+        location.set((float) (min.x() + max.x()) / 2, (float) (min.y() + max.y()) / 2, (float) (min.z() + max.z()) / 2);
+        box.setPhysicsLocation(location);
+
+        return run(box, out);
+    }
+
+    int sphere(@NotNull Point center, double radius, @NotNull Collection<? super MinecraftPhysicsObject> out) {
+        if (sphere == null) {
+            sphere = physics.getResources().body(new PhysicsGhostObject(new SphereCollisionShape(1f)));
+        }
+
+        sphere.getCollisionShape().setScale((float) radius);
+        location.set((float) center.x(), (float) center.y(), (float) center.z());
+        sphere.setPhysicsLocation(location);
+
+        return run(sphere, out);
+    }
+
+    private int run(@NotNull PhysicsGhostObject ghost, @NotNull Collection<? super MinecraftPhysicsObject> out) {
+        this.out = out;
+        try {
+            for (PhysicsSpace space : physics.getPhysicsSpaces()) {
+                space.contactTest(ghost, this);
+            }
+            return seen.size();
+        } finally {
+            this.out = null;
+            seen.clear();
+        }
+    }
+
+    @Override
+    public void collision(PhysicsCollisionEvent event) {
+        final PhysicsCollisionObject other = event.getObjectA() == box || event.getObjectA() == sphere
+                ? event.getObjectB() : event.getObjectA();
+
+        final MinecraftPhysicsObject object = physics.getObjectByPhysicsObject(other);
+        if (object != null && seen.add(object)) out.add(object);
+    }
+
+    /**
+     * Drops the ghosts, which are released along with the rest of the physics world.
+     */
+    void clear() {
+        box = null;
+        sphere = null;
+    }
+}
@@ -2,11 +2,12 @@ package net.minestom.jam;
 
 import com.jme3.bounding.BoundingBox;
 import com.jme3.bullet.collision.PhysicsCollisionObject;
-import com.jme3.bullet.collision.shapes.BoxCollisionShape;
 import com.jme3.bullet.objects.PhysicsRigidBody;
 import com.jme3.math.Quaternion;
 import com.jme3.math.Vector3f;
 import net.minestom.jam.objects.MinecraftPhysicsObject;
+import net.minestom.jam.profiling.TickPhase;
+import net.minestom.jam.profiling.TickProfiler;
 import net.minestom.server.coordinate.Pos;
 import net.minestom.server.coordinate.Vec;
 import net.minestom.server.entity.Entity;
@@ -14,12 +15,27 @@ import net.minestom.server.entity.EntityType;
 import net.minestom.server.entity.LivingEntity;
 import net.minestom.server.entity.attribute.Attribute;
 import net.minestom.server.instance.Instance;
-import net.minestom.server.utils.Direction;
 
 import java.util.*;
 
 public class ShulkerHitboxes {
 
+    /**
+     * The spacing, in blocks, between tested points.
+     */
+    public static final float RESOLUTION = 0.3f;
+
+    /**
+     * The largest cube, in points, a single shulker can cover. {@link Attribute#SCALE} goes up to 16.
+     */
+    public static final int MAX_CUBE_SIZE = (int) (16 / RESOLUTION);
+
+    /**
+     * The share of a cube that may be outside the object, set with {@code -Dtower.hitboxTolerance}. Higher values give
+     * fewer, bigger shulkers that stick out further from rotated objects.
+     */
+    public static final float TOLERANCE = Float.parseFloat(System.getProperty("tower.hitboxTolerance", "0.1"));
+
     /**
      * Generates and spawns shulker entities for a given physics object.
      * This method is stateless and returns the list of spawned entities for the caller to manage.
@@ -29,44 +45,21 @@ public class ShulkerHitboxes {
      * @return A list of the spawned entities (holders and shulkers).
      */
     public static List<Entity> generateAndSpawnShulkers(MinecraftPhysics minecraftPhysics, MinecraftPhysicsObject mcObject) {
-        final PhysicsCollisionObject object = mcObject.getCollisionObject();
+        final TickProfiler profiler = minecraftPhysics.getProfiler();
+        final long start = profiler.start();
+
         final Instance instance = minecraftPhysics.getInstance();
         final List<Entity> spawnedEntities = new ArrayList<>();
 
-        final Vector3f location = object.getPhysicsLocation(new Vector3f());
-        final Quaternion quaternion = object.getPhysicsRotation(new Quaternion());
-        final BoundingBox bb = object.getCollisionShape().boundingBox(location, quaternion, new BoundingBox());
-
-        // This small body is used to test for collision points
-        final var testObj = new PhysicsRigidBody(new BoxCollisionShape(0.01f), 1f);
-
-        final float resolution = 0.3f;
-        final PointIterator pointIterator = new PointIterator(bb, resolution);
-        final List<IntVec> scaledPoints = new ArrayList<>();
-
-        // First, find all valid, discrete points inside the physics object's bounds
-        while (pointIterator.hasNext()) {
-            var point = pointIterator.next();
-            testObj.setPhysicsLocation(new Vector3f((float) point.x(), (float) point.y(), (float) point.z()));
-
-            // pairTest checks if the small test body is colliding with the main object
-            if (minecraftPhysics.getPhysicsSpace().pairTest(object, testObj, null) > 0) {
-                scaledPoints.add(new IntVec(
-                        (int) Math.round(point.x() / resolution),
-                        (int) Math.round(point.y() / resolution),
-                        (int) Math.round(point.z() / resolution)
-                ));
-            }
-        }
-
-        // Then, create shulkers only on the "shell" of these points for a hollow effect
-        for (IntVec point : scaledPoints) {
-            if (!anyNeighborEmpty(point, scaledPoints)) continue;
+        // Cover the object with as few cubes as possible, each one a scaled shulker
+        for (Cube cube : cover(voxelize(minecraftPhysics, mcObject.getCollisionObject()), TOLERANCE, MAX_CUBE_SIZE)) {
+            final float size = cube.size() * RESOLUTION;
 
+            // A shulker stands on the bottom center of its box
             final Pos spawnPos = new Pos(
-                    point.x() * resolution,
-                    point.y() * resolution,
-                    point.z() * resolution
+                    (cube.x() - 0.5) * RESOLUTION + size / 2,
+                    (cube.y() - 0.5) * RESOLUTION,
+                    (cube.z() - 0.5) * RESOLUTION + size / 2
             );
 
             // Create and spawn the entities that form the visible hitbox
@@ -76,7 +69,7 @@ public class ShulkerHitboxes {
             final var shulker = new LivingEntity(EntityType.SHULKER);
             shulker.setNoGravity(true);
             shulker.setInvisible(false);
-            shulker.getAttribute(Attribute.SCALE).setBaseValue(0.1f);
+            shulker.getAttribute(Attribute.SCALE).setBaseValue(size);
 
             spawnedEntities.add(holder);
             spawnedEntities.add(shulker);
@@ -88,20 +81,107 @@ public class ShulkerHitboxes {
                     )
             );
         }
+
+        profiler.end(TickPhase.SHULKER_GENERATION, start, minecraftPhysics.getObjects().size());
         return spawnedEntities;
     }
 
     /**
-     * Checks if any adjacent position in the grid of points is empty.
-     * Used to create a hollow shell of shulkers instead of a solid block.
+     * A cube of points, from its minimum corner and with a side of {@code size} points.
      */
-    public static boolean anyNeighborEmpty(IntVec pos, List<IntVec> positions) {
-        for (Direction direction : Direction.values()) {
-            if (!positions.contains(pos.add(direction.normalX(), direction.normalY(), direction.normalZ()))) {
-                return true;
+    public record Cube(int x, int y, int z, int size) {
+    }
+
+    /**
+     * Greedily covers points with cubes. Starting from the lowest uncovered point, each cube grows for as long as at
+     * most {@code tolerance} of it is empty, so the inside of an object is covered by a few big cubes and only the
+     * edges need small ones. Cubes may overlap.
+     *
+     * @param tolerance the share of a cube, from 0 to 1, that may be outside the points
+     * @param maxSize   the largest side of a cube, in points
+     */
+    public static List<Cube> cover(List<IntVec> points, float tolerance, int maxSize) {
+        final Set<IntVec> filled = new HashSet<>(points);
+        final Set<IntVec> covered = new HashSet<>();
+
+        final List<IntVec> sorted = new ArrayList<>(points);
+        sorted.sort(Comparator.comparingInt(IntVec::y).thenComparingInt(IntVec::z).thenComparingInt(IntVec::x));
+
+        final List<Cube> cubes = new ArrayList<>();
+        for (IntVec start : sorted) {
+            if (covered.contains(start)) continue;
+
+            int size = 1;
+            int empty = 0;
+            while (size < maxSize) {
+                final int grown = size + 1;
+                final int layerEmpty = countEmptyLayer(filled, start, grown);
+                if (empty + layerEmpty > tolerance * grown * grown * grown) break;
+
+                size = grown;
+                empty += layerEmpty;
+            }
+
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    for (int z = 0; z < size; z++) {
+                        final IntVec point = start.add(x, y, z);
+                        if (filled.contains(point)) covered.add(point);
+                    }
+                }
+            }
+            cubes.add(new Cube(start.x(), start.y(), start.z(), size));
+        }
+        return cubes;
+    }
+
+    /**
+     * Counts the empty points added by growing a cube at {@code start} to a side of {@code size}, i.e. those with at
+     * least one coordinate equal to {@code size - 1}.
+     */
+    private static int countEmptyLayer(Set<IntVec> filled, IntVec start, int size) {
+        final int last = size - 1;
+        int empty = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                for (int z = 0; z < size; z++) {
+                    if (x != last && y != last && z != last) continue;
+                    if (!filled.contains(start.add(x, y, z))) empty++;
+                }
+            }
+        }
+        return empty;
+    }
+
+    /**
+     * Finds every discrete point, in units of {@link #RESOLUTION}, inside a collision object.
+     */
+    public static List<IntVec> voxelize(MinecraftPhysics minecraftPhysics, PhysicsCollisionObject object) {
+        final Vector3f location = object.getPhysicsLocation(new Vector3f());
+        final Quaternion quaternion = object.getPhysicsRotation(new Quaternion());
+        final BoundingBox bb = object.getCollisionShape().boundingBox(location, quaternion, new BoundingBox());
+
+        // This small body is used to test for collision points; it's reused across calls
+        final PhysicsRigidBody testObj = minecraftPhysics.getProbe();
+        final Vector3f testLocation = new Vector3f();
+
+        final PointIterator pointIterator = new PointIterator(bb, RESOLUTION);
+        final List<IntVec> scaledPoints = new ArrayList<>();
+
+        while (pointIterator.hasNext()) {
+            var point = pointIterator.next();
+            testObj.setPhysicsLocation(testLocation.set((float) point.x(), (float) point.y(), (float) point.z()));
+
+            // pairTest checks if the small test body is colliding with the main object
+            if (minecraftPhysics.getPhysicsSpace().pairTest(object, testObj, null) > 0) {
+                scaledPoints.add(new IntVec(
+                        (int) Math.round(point.x() / RESOLUTION),
+                        (int) Math.round(point.y() / RESOLUTION),
+                        (int) Math.round(point.z() / RESOLUTION)
+                ));
             }
         }
-        return false;
+        return scaledPoints;
     }
 
     /**
@@ -0,0 +1,79 @@
+package net.minestom.jam;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.minestom.jam.instance.Lobby;
+import net.minestom.server.command.builder.Command;
+import net.minestom.server.command.builder.arguments.Argument;
+import net.minestom.server.command.builder.arguments.ArgumentType;
+import net.minestom.server.command.builder.condition.Conditions;
+import net.minestom.server.entity.Entity;
+import net.minestom.server.entity.Player;
+import net.minestom.server.utils.entity.EntityFinder;
+
+import java.util.List;
+
+/**
+ * {@code /spectate <player>}: watches the game a player is in. {@code /spectate} alone returns to the lobby.
+ */
+public final class SpectateCommand extends Command {
+
+    private static final Argument<EntityFinder> PLAYER = ArgumentType.Entity("player").onlyPlayers(true).singleEntity(true);
+
+    public SpectateCommand() {
+        super("spectate");
+
+        setCondition(Conditions::playerOnly);
+
+        setDefaultExecutor((sender, context) -> {
+            final Player player = (Player) sender;
+
+            final Game game = player.getTag(Game.SPECTATING);
+            if (game == null) {
+                player.sendMessage(SPECTATE_SYNTAX);
+                return;
+            }
+
+            game.stopSpectating(player);
+            Lobby.send(player);
+        });
+
+        addSyntax((sender, context) -> {
+            final Player player = (Player) sender;
+
+            if (player.hasTag(Game.GAME)) {
+                player.sendMessage(CANNOT_SPECTATE_IN_GAME);
+                return;
+            }
+
+            final List<Entity> found = context.get(PLAYER).find(player);
+            final Game game = found.isEmpty() ? null : Game.GAMES.getByPlayer(found.getFirst().getUuid());
+            if (game == null) {
+                player.sendMessage(NOT_IN_A_GAME);
+                return;
+            }
+
+            final Game previous = player.getTag(Game.SPECTATING);
+            if (previous == game) return;
+            if (previous != null) previous.stopSpectating(player);
+
+            game.spectate(player);
+        }, PLAYER);
+    }
+
+    private static final Component SPECTATE_SYNTAX = Component.textOfChildren(
+            Component.text("[!]", NamedTextColor.RED, TextDecoration.BOLD),
+            Component.text(" /spectate syntax: /spectate <player>", NamedTextColor.RED)
+    );
+
+    private static final Component CANNOT_SPECTATE_IN_GAME = Component.textOfChildren(
+            Component.text("[!]", NamedTextColor.RED, TextDecoration.BOLD),
+            Component.text(" You cannot spectate while you are in a game!", NamedTextColor.RED)
+    );
+
+    private static final Component NOT_IN_A_GAME = Component.textOfChildren(
+            Component.text("[!]", NamedTextColor.RED, TextDecoration.BOLD),
+            Component.text(" That player is not in a game!", NamedTextColor.RED)
+    );
+}
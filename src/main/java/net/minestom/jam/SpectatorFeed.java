@@ -0,0 +1,164 @@
+package net.minestom.jam;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import net.minestom.jam.objects.MinecraftPhysicsObject;
+import net.minestom.server.adventure.audience.PacketGroupingAudience;
+import net.minestom.server.coordinate.Vec;
+import net.minestom.server.entity.Entity;
+import net.minestom.server.entity.Metadata;
+import net.minestom.server.entity.Player;
+import net.minestom.server.entity.metadata.display.AbstractDisplayMeta;
+import net.minestom.server.network.packet.server.ServerPacket;
+import net.minestom.server.network.packet.server.play.BundlePacket;
+import net.minestom.server.network.packet.server.play.DestroyEntitiesPacket;
+import net.minestom.server.network.packet.server.play.EntityMetaDataPacket;
+import net.minestom.server.network.packet.server.play.EntityTeleportPacket;
+import net.minestom.server.network.packet.server.play.SpawnEntityPacket;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * Streams the physics objects of a game to its spectators.
+ * <br>
+ * Spectators are not viewers of the physics entities (see {@link MinecraftPhysics#SPECTATOR_RULE}), so the per-viewer
+ * bookkeeping of Minestom does not grow with them. Instead, every tick's changes are turned into packets once and
+ * sent as grouped packets, which are serialized a single time and written as-is to every spectator's connection.
+ * Spectators joining mid-match receive a snapshot of every object currently shown.
+ * <br>
+ * The client disconnects when a bundle holds more than 4096 packets, so large updates are split over several bundles
+ * of at most {@link #MAX_BUNDLE_SIZE} packets.
+ */
+public final class SpectatorFeed implements PacketGroupingAudience {
+
+    // Display entity metadata indices
+    private static final int INTERPOLATION_DELAY = 8;
+    private static final int TRANSFORMATION_INTERPOLATION_DURATION = 9;
+    private static final int POSITION_INTERPOLATION_DURATION = 10;
+    private static final int LEFT_ROTATION = 13;
+
+    /**
+     * The most packets put in one bundle, with some room to spare below the client's limit.
+     */
+    private static final int MAX_BUNDLE_SIZE = 4000;
+    private static final BundlePacket BUNDLE_DELIMITER = new BundlePacket();
+
+    private final Set<Player> spectators = new CopyOnWriteArraySet<>();
+
+    /**
+     * The entities that every spectator currently knows about.
+     */
+    private final IntSet shown = new IntOpenHashSet();
+    private final IntSet present = new IntOpenHashSet();
+    private final List<ServerPacket> packets = new ArrayList<>();
+
+    /**
+     * Starts streaming to a player, who must already be in the game's instance. Call on the tick thread.
+     */
+    public void add(@NotNull Player player, @NotNull List<MinecraftPhysicsObject> objects) {
+        List<ServerPacket> snapshot = new ArrayList<>();
+        for (MinecraftPhysicsObject object : objects) {
+            for (Entity entity : object.getEntities()) {
+                if (shown.contains(entity.getEntityId())) addSpawn(snapshot, entity);
+            }
+        }
+
+        sendBundled(snapshot, player::sendPacket);
+        spectators.add(player);
+    }
+
+    public void remove(@NotNull Player player) {
+        spectators.remove(player);
+    }
+
+    public boolean isEmpty() {
+        return spectators.isEmpty();
+    }
+
+    /**
+     * Sends the changes since the last broadcast to every spectator. Call after the physics objects were synced.
+     *
+     * @param interpolation the client ticks to interpolate over, until the next broadcast
+     */
+    public void broadcast(@NotNull List<MinecraftPhysicsObject> objects, int interpolation) {
+        if (spectators.isEmpty()) {
+            // Nobody to keep in sync; whoever joins next gets a full snapshot
+            shown.clear();
+            return;
+        }
+
+        present.clear();
+
+        for (MinecraftPhysicsObject object : objects) {
+            final boolean moving = object.getCollisionObject().isActive();
+
+            // Structures are shown with an entity per block
+            for (Entity entity : object.getEntities()) {
+                if (!entity.isActive()) continue;
+
+                final int id = entity.getEntityId();
+                present.add(id);
+
+                if (shown.add(id)) {
+                    addSpawn(packets, entity);
+                } else if (moving && entity.getEntityMeta() instanceof AbstractDisplayMeta meta) {
+                    packets.add(new EntityTeleportPacket(id, entity.getPosition(), Vec.ZERO, 0, false));
+                    packets.add(new EntityMetaDataPacket(id, Map.of(
+                            INTERPOLATION_DELAY, Metadata.VarInt(0),
+                            TRANSFORMATION_INTERPOLATION_DURATION, Metadata.VarInt(interpolation),
+                            POSITION_INTERPOLATION_DURATION, Metadata.VarInt(interpolation),
+                            LEFT_ROTATION, Metadata.Quaternion(meta.getLeftRotation())
+                    )));
+                }
+            }
+        }
+
+        if (shown.size() > present.size()) {
+            IntArrayList removed = new IntArrayList();
+            shown.forEach(id -> {
+                if (!present.contains(id)) removed.add(id);
+            });
+            shown.removeAll(removed);
+            packets.add(new DestroyEntitiesPacket(removed));
+        }
+
+        sendBundled(packets, this::sendGroupedPacket);
+        packets.clear();
+    }
+
+    /**
+     * Sends packets in bundles of at most {@link #MAX_BUNDLE_SIZE}, so each bundle is applied in a single client tick.
+     */
+    private static void sendBundled(@NotNull List<ServerPacket> packets, @NotNull Consumer<ServerPacket> sender) {
+        if (packets.isEmpty()) return;
+
+        for (int start = 0; start < packets.size(); start += MAX_BUNDLE_SIZE) {
+            sender.accept(BUNDLE_DELIMITER);
+            for (ServerPacket packet : packets.subList(start, Math.min(packets.size(), start + MAX_BUNDLE_SIZE))) {
+                sender.accept(packet);
+            }
+            sender.accept(BUNDLE_DELIMITER);
+        }
+    }
+
+    private static void addSpawn(@NotNull List<ServerPacket> packets, @NotNull Entity entity) {
+        packets.add(new SpawnEntityPacket(entity.getEntityId(), entity.getUuid(), entity.getEntityType(),
+                entity.getPosition(), 0, 0, Vec.ZERO));
+        packets.add(entity.getMetadataPacket());
+    }
+
+    @Override
+    public @NotNull @UnmodifiableView Collection<@NotNull Player> getPlayers() {
+        return Collections.unmodifiableCollection(spectators);
+    }
+}
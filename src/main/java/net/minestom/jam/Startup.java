@@ -0,0 +1,108 @@
+package net.minestom.jam;
+
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.collision.PhysicsRayTestResult;
+import com.jme3.bullet.collision.shapes.BoxCollisionShape;
+import com.jme3.bullet.collision.shapes.CollisionShape;
+import com.jme3.bullet.objects.PhysicsRigidBody;
+import com.jme3.math.Vector3f;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times the startup of the server and warms up what the first match would otherwise pay for.
+ * <br>
+ * {@link #mark(String)} records how long each phase took since the previous one (or since the JVM started, for the
+ * first), and {@link #ready()} records the time since the JVM started, once the server accepts players. Both are
+ * exported as {@code tower_startup_seconds}.
+ * <br>
+ * With {@code -Dtower.exitWhenReady}, the server exits as soon as it is ready. The {@code cdsArchive} Gradle task uses
+ * this to record the classes loaded during startup into an AppCDS archive.
+ */
+public final class Startup {
+
+    private static final int PREWARM_BODIES = 64;
+    private static final int PREWARM_STEPS = 120;
+
+    private static final Map<String, Double> PHASES = new ConcurrentHashMap<>();
+    /**
+     * Starts at the JVM start rather than when this class loads, which is after the natives, so the first phase covers
+     * everything before it and the phases add up to the time to ready.
+     */
+    private static long lastMark = System.nanoTime() - ManagementFactory.getRuntimeMXBean().getUptime() * 1_000_000;
+    private static volatile double timeToReady = -1;
+
+    private Startup() {
+    }
+
+    /**
+     * Records the time since the previous mark as the duration of a phase.
+     */
+    public static synchronized void mark(@NotNull String phase) {
+        final long now = System.nanoTime();
+        PHASES.put(phase, (now - lastMark) / 1e9);
+        lastMark = now;
+    }
+
+    /**
+     * Records the time to ready, and exits if this is a training run.
+     */
+    public static void ready() {
+        timeToReady = ManagementFactory.getRuntimeMXBean().getUptime() / 1e3;
+        System.out.printf("Ready in %.2f s %s%n", timeToReady, PHASES);
+
+        if (Boolean.getBoolean("tower.exitWhenReady")) System.exit(0);
+    }
+
+    /**
+     * Returns the duration of each phase so far, in seconds.
+     */
+    public static @NotNull Map<String, Double> phases() {
+        return Map.copyOf(PHASES);
+    }
+
+    /**
+     * Returns the seconds between the JVM starting and the server accepting players, or -1 if it isn't ready yet.
+     */
+    public static double timeToReady() {
+        return timeToReady;
+    }
+
+    /**
+     * Drops a stack of boxes on a floor in a throwaway space and steps it, so that the JNI bindings are resolved and
+     * the stepping code is compiled before the first match starts.
+     */
+    public static void prewarmPhysics() {
+        final PhysicsSpace space = NativeLoader.createSpace();
+        space.setGravity(new Vector3f(0, -17, 0));
+
+        final CollisionShape floorShape = new BoxCollisionShape(50, 0.5f, 50);
+        final PhysicsRigidBody floor = new PhysicsRigidBody(floorShape, PhysicsRigidBody.massForStatic);
+        floor.setPhysicsLocation(new Vector3f(0, -0.5f, 0));
+        space.add(floor);
+
+        final CollisionShape boxShape = new BoxCollisionShape(0.5f);
+        final List<PhysicsRigidBody> boxes = new ArrayList<>(PREWARM_BODIES);
+        for (int i = 0; i < PREWARM_BODIES; i++) {
+            final PhysicsRigidBody box = new PhysicsRigidBody(boxShape, 1);
+            box.setPhysicsLocation(new Vector3f(i % 4 * 1.1f, 0.5f + i / 16 * 1.1f, i / 4 % 4 * 1.1f));
+            space.add(box);
+            boxes.add(box);
+        }
+
+        final List<PhysicsRayTestResult> hits = new ArrayList<>();
+        for (int step = 0; step < PREWARM_STEPS; step++) {
+            space.update(1 / 60f);
+            space.rayTestRaw(new Vector3f(0, 10, 0), new Vector3f(0, -10, 0), hits);
+        }
+
+        for (PhysicsRigidBody box : boxes) space.remove(box);
+        space.remove(floor);
+        space.destroy();
+    }
+}
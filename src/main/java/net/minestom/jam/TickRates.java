@@ -0,0 +1,101 @@
+package net.minestom.jam;
+
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.event.server.ServerTickMonitorEvent;
+
+/**
+ * The simulation and broadcast rates.
+ * <br>
+ * Physics steps every server tick, {@code -Dtower.simulationRate} times a second (60 by default). Display entities are
+ * only synced to clients every few ticks, {@code -Dtower.broadcastRate} times a second (20 by default, the client's
+ * own tick rate), with the interpolation stretched to cover the gap.
+ * <br>
+ * When ticks get close to their budget, the broadcast interval doubles, up to {@code -Dtower.maxBroadcastInterval}
+ * ticks, so every client sees smoother but less frequent updates before anyone sees dropped ticks. The simulation
+ * rate itself never changes; it only falls behind once broadcasts are already at their slowest. The interval comes
+ * back down once ticks have been well under budget for a while.
+ */
+public final class TickRates {
+
+    public static final int SIMULATION_RATE = Integer.getInteger("tower.simulationRate", 60);
+
+    private static final int BASE_INTERVAL = Math.max(1,
+            Math.round(SIMULATION_RATE / (float) Integer.getInteger("tower.broadcastRate", 20)));
+    private static final int MAX_INTERVAL = Math.max(BASE_INTERVAL,
+            Integer.getInteger("tower.maxBroadcastInterval", BASE_INTERVAL * 4));
+
+    /**
+     * The client ticks 20 times a second, and display interpolation is counted in client ticks.
+     */
+    private static final int CLIENT_RATE = 20;
+
+    private static final double BUDGET_MS = 1000.0 / SIMULATION_RATE;
+    private static final double OVERLOADED = 0.8;
+    private static final double RECOVERED = 0.5;
+    private static final double SMOOTHING = 0.1;
+
+    private static volatile int interval = BASE_INTERVAL;
+
+    // Tick thread only
+    private static double averageTickMs = 0;
+    private static int ticksSinceChange = 0;
+
+    private TickRates() {
+    }
+
+    /**
+     * Starts adapting the broadcast interval to the tick time.
+     */
+    public static void install() {
+        MinecraftServer.getGlobalEventHandler().addListener(ServerTickMonitorEvent.class, event ->
+                onTick(event.getTickMonitor().getTickTime()));
+    }
+
+    private static void onTick(double tickMs) {
+        averageTickMs += (tickMs - averageTickMs) * SMOOTHING;
+        ticksSinceChange++;
+
+        if (averageTickMs > BUDGET_MS * OVERLOADED) {
+            // Give the last change half a second to show before slowing down further
+            if (interval < MAX_INTERVAL && ticksSinceChange >= SIMULATION_RATE / 2) {
+                interval = Math.min(MAX_INTERVAL, interval * 2);
+                ticksSinceChange = 0;
+            }
+        } else if (averageTickMs < BUDGET_MS * RECOVERED) {
+            // Speeding up is slower, so a short lull doesn't make it flap
+            if (interval > BASE_INTERVAL && ticksSinceChange >= SIMULATION_RATE * 2) {
+                interval = Math.max(BASE_INTERVAL, interval / 2);
+                ticksSinceChange = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns whether a tick sends display updates. Games pass their own tick offset by their ID, so that their
+     * broadcasts are spread over the interval instead of all landing on the same tick.
+     */
+    public static boolean isBroadcastTick(int tick) {
+        return Math.floorMod(tick, interval) == 0;
+    }
+
+    /**
+     * Returns whether broadcasts are currently slowed down because of the tick time.
+     */
+    public static boolean isDegraded() {
+        return interval > BASE_INTERVAL;
+    }
+
+    /**
+     * Returns the number of server ticks between two broadcasts.
+     */
+    public static int broadcastInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the interpolation duration of display entities, in client ticks, covering one broadcast interval.
+     */
+    public static int interpolationTicks() {
+        return Math.max(1, Math.round(interval * CLIENT_RATE / (float) SIMULATION_RATE));
+    }
+}
@@ -0,0 +1,335 @@
+package net.minestom.jam.instance;
+
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.nbt.BinaryTagIO;
+import net.kyori.adventure.nbt.CompoundBinaryTag;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.instance.Chunk;
+import net.minestom.server.instance.ChunkLoader;
+import net.minestom.server.instance.Instance;
+import net.minestom.server.instance.InstanceContainer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * A precompiled, palette-based copy of an anvil world that loads without touching NBT.
+ * <br>
+ * The file ({@code world.bin} next to the {@code region} folder) stores every section as its block state palette and
+ * the packed indices along with its sky and block light, plus block entity data for the handlers in
+ * {@link BlockHandlers}. It is written on first run
+ * (or with {@code ./gradlew convertGameMap}) and rewritten whenever the region files are newer or the server version
+ * changes, since block state IDs are version-specific.
+ */
+public final class BinaryWorld implements ChunkLoader {
+
+    public static final String FILE_NAME = "world.bin";
+
+    private static final int MAGIC = 0x54575231; // TWR1
+    private static final int FORMAT_VERSION = 2;
+
+    private static final Pattern REGION_FILE = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
+
+    private final Map<Long, ChunkSnapshot> chunks;
+
+    private BinaryWorld(@NotNull Map<Long, ChunkSnapshot> chunks) {
+        this.chunks = chunks;
+    }
+
+    /**
+     * Loads the binary snapshot of the given world folder, converting the region files first if it is missing or stale.
+     */
+    public static @NotNull BinaryWorld loadOrConvert(@NotNull Path world) {
+        final Path file = world.resolve(FILE_NAME);
+
+        try {
+            if (isUpToDate(world, file)) {
+                BinaryWorld loaded = read(file);
+                if (loaded != null) return loaded;
+            }
+
+            BinaryWorld converted = convert(new MappedRegionLoader(world));
+            converted.write(file);
+            return converted;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load binary world " + file, e);
+        }
+    }
+
+    /**
+     * Decodes every chunk in every region file of the loader's world.
+     */
+    public static @NotNull BinaryWorld convert(@NotNull MappedRegionLoader loader) throws IOException {
+        final Map<Long, ChunkSnapshot> chunks = new HashMap<>();
+
+        try (Stream<Path> files = Files.list(loader.getWorld().resolve("region"))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = REGION_FILE.matcher(file.getFileName().toString());
+                if (!matcher.matches()) continue;
+
+                final int regionX = Integer.parseInt(matcher.group(1));
+                final int regionZ = Integer.parseInt(matcher.group(2));
+
+                for (int i = 0; i < 32 * 32; i++) {
+                    final int chunkX = (regionX << 5) + (i & 31);
+                    final int chunkZ = (regionZ << 5) + (i >> 5);
+
+                    final CompoundBinaryTag nbt = loader.readChunk(chunkX, chunkZ);
+                    if (nbt == null) continue;
+
+                    final ChunkSnapshot snapshot = ChunkSnapshot.decode(nbt);
+                    if (snapshot != null) chunks.put(index(chunkX, chunkZ), withRegisteredBlockEntities(snapshot));
+                }
+            }
+        }
+
+        return new BinaryWorld(chunks);
+    }
+
+    private static @NotNull ChunkSnapshot withRegisteredBlockEntities(@NotNull ChunkSnapshot snapshot) {
+        List<ChunkSnapshot.BlockEntity> kept = new ArrayList<>();
+        for (ChunkSnapshot.BlockEntity blockEntity : snapshot.blockEntities()) {
+            if (blockEntity.id() != null && BlockHandlers.KEYS.contains(Key.key(blockEntity.id()))) {
+                kept.add(blockEntity);
+            }
+        }
+        return new ChunkSnapshot(snapshot.chunkX(), snapshot.chunkZ(), snapshot.sections(), kept.toArray(ChunkSnapshot.BlockEntity[]::new));
+    }
+
+    private static boolean isUpToDate(@NotNull Path world, @NotNull Path file) throws IOException {
+        if (!Files.isRegularFile(file)) return false;
+
+        final FileTime written = Files.getLastModifiedTime(file);
+        try (Stream<Path> files = Files.list(world.resolve("region"))) {
+            return files.noneMatch(region -> {
+                try {
+                    return Files.getLastModifiedTime(region).compareTo(written) > 0;
+                } catch (IOException e) {
+                    return true;
+                }
+            });
+        }
+    }
+
+    /**
+     * Creates a new instance container backed by this world.
+     */
+    public @NotNull InstanceContainer createInstance() {
+        return MinecraftServer.getInstanceManager().createInstanceContainer(this);
+    }
+
+    @Override
+    public @Nullable Chunk loadChunk(@NotNull Instance instance, int chunkX, int chunkZ) {
+        final ChunkSnapshot snapshot = chunks.get(index(chunkX, chunkZ));
+        if (snapshot == null) return null;
+
+        final Chunk chunk = instance.getChunkSupplier().createChunk(instance, chunkX, chunkZ);
+        synchronized (chunk) {
+            snapshot.apply(chunk);
+        }
+        return chunk;
+    }
+
+    @Override
+    public void saveChunk(@NotNull Chunk chunk) {
+        // Read-only
+    }
+
+    @Override
+    public boolean supportsParallelLoading() {
+        return true;
+    }
+
+    public @Nullable ChunkSnapshot getChunk(int chunkX, int chunkZ) {
+        return chunks.get(index(chunkX, chunkZ));
+    }
+
+    public int chunkCount() {
+        return chunks.size();
+    }
+
+    private static long index(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes this world to a file, replacing it atomically.
+     */
+    public void write(@NotNull Path file) throws IOException {
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(MinecraftServer.VERSION_NAME);
+            out.writeInt(chunks.size());
+
+            for (ChunkSnapshot chunk : chunks.values()) {
+                out.writeInt(chunk.chunkX());
+                out.writeInt(chunk.chunkZ());
+
+                out.writeShort(chunk.sections().length);
+                for (ChunkSnapshot.Section section : chunk.sections()) {
+                    out.writeByte(section.y());
+
+                    out.writeShort(section.blockPalette().length);
+                    for (int stateId : section.blockPalette()) out.writeInt(stateId);
+                    writeLongs(out, section.blockData());
+
+                    out.writeShort(section.biomePalette().length);
+                    for (String biome : section.biomePalette()) out.writeUTF(biome);
+                    writeLongs(out, section.biomeData());
+
+                    writeBytes(out, section.skyLight());
+                    writeBytes(out, section.blockLight());
+                }
+
+                out.writeShort(chunk.blockEntities().length);
+                for (ChunkSnapshot.BlockEntity blockEntity : chunk.blockEntities()) {
+                    out.writeInt(blockEntity.x());
+                    out.writeInt(blockEntity.y());
+                    out.writeInt(blockEntity.z());
+                    out.writeUTF(blockEntity.id() != null ? blockEntity.id() : "");
+
+                    ByteArrayOutputStream nbt = new ByteArrayOutputStream();
+                    BinaryTagIO.writer().write(blockEntity.data(), nbt);
+                    out.writeInt(nbt.size());
+                    nbt.writeTo(out);
+                }
+            }
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeLongs(@NotNull DataOutputStream out, long @Nullable [] data) throws IOException {
+        if (data == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(data.length);
+        for (long value : data) out.writeLong(value);
+    }
+
+    private static void writeBytes(@NotNull DataOutputStream out, byte @Nullable [] data) throws IOException {
+        if (data == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    /**
+     * Reads a world written by {@link #write(Path)}.
+     *
+     * @return the world, or null if the file was written by a different format or server version
+     */
+    public static @Nullable BinaryWorld read(@NotNull Path file) throws IOException {
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) return null;
+        if (!readUTF(buffer).equals(MinecraftServer.VERSION_NAME)) return null;
+
+        final int chunkCount = buffer.getInt();
+        final Map<Long, ChunkSnapshot> chunks = new HashMap<>(chunkCount * 2);
+
+        for (int c = 0; c < chunkCount; c++) {
+            final int chunkX = buffer.getInt();
+            final int chunkZ = buffer.getInt();
+
+            final ChunkSnapshot.Section[] sections = new ChunkSnapshot.Section[buffer.getShort()];
+            for (int s = 0; s < sections.length; s++) {
+                final int y = buffer.get();
+
+                final int[] blockPalette = new int[buffer.getShort()];
+                buffer.asIntBuffer().get(blockPalette);
+                buffer.position(buffer.position() + blockPalette.length * Integer.BYTES);
+                final long[] blockData = readLongs(buffer);
+
+                final String[] biomePalette = new String[buffer.getShort()];
+                for (int i = 0; i < biomePalette.length; i++) biomePalette[i] = readUTF(buffer);
+                final long[] biomeData = readLongs(buffer);
+
+                final byte[] skyLight = readBytes(buffer);
+                final byte[] blockLight = readBytes(buffer);
+
+                sections[s] = new ChunkSnapshot.Section(y, blockPalette, blockData, biomePalette, biomeData,
+                        skyLight, blockLight);
+            }
+
+            final ChunkSnapshot.BlockEntity[] blockEntities = new ChunkSnapshot.BlockEntity[buffer.getShort()];
+            for (int i = 0; i < blockEntities.length; i++) {
+                final int x = buffer.getInt(), y = buffer.getInt(), z = buffer.getInt();
+                final String id = readUTF(buffer);
+
+                final byte[] nbt = new byte[buffer.getInt()];
+                buffer.get(nbt);
+
+                blockEntities[i] = new ChunkSnapshot.BlockEntity(x, y, z, id.isEmpty() ? null : id,
+                        BinaryTagIO.unlimitedReader().read(new ByteArrayInputStream(nbt)));
+            }
+
+            chunks.put(index(chunkX, chunkZ), new ChunkSnapshot(chunkX, chunkZ, sections, blockEntities));
+        }
+
+        return new BinaryWorld(chunks);
+    }
+
+    private static long @Nullable [] readLongs(@NotNull ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length == 0) return null;
+
+        final long[] data = new long[length];
+        buffer.asLongBuffer().get(data);
+        buffer.position(buffer.position() + length * Long.BYTES);
+        return data;
+    }
+
+    private static byte @Nullable [] readBytes(@NotNull ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length == 0) return null;
+
+        final byte[] data = new byte[length];
+        buffer.get(data);
+        return data;
+    }
+
+    private static @NotNull String readUTF(@NotNull ByteBuffer buffer) {
+        // Strings here are always ASCII keys, for which modified UTF-8 is plain UTF-8
+        final byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts a world folder ahead of time: {@code BinaryWorld <world folder>}.
+     */
+    public static void main(String[] args) {
+        final Path world = Path.of(args.length > 0 ? args[0] : "game");
+
+        long start = System.nanoTime();
+        BinaryWorld converted = loadOrConvert(world);
+        System.out.printf("Wrote %d chunks to %s in %d ms%n", converted.chunkCount(), world.resolve(FILE_NAME),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
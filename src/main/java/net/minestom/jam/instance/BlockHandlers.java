@@ -8,6 +8,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Block handlers for signs, hanging signs, player heads, and banners.
@@ -16,6 +17,11 @@ import java.util.List;
  */
 public final class BlockHandlers {
 
+    /**
+     * The keys of every handler registered by {@link #register(BlockManager)}.
+     */
+    public static final Set<Key> KEYS = Set.of(Sign.KEY, HangingSign.KEY, PlayerHead.KEY, Banner.KEY);
+
     /**
      * Registers every handler to a given block manager.
      * This should probably be {@code MinecraftServer.getBlockManager()}.
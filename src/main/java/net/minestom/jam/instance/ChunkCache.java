@@ -0,0 +1,63 @@
+package net.minestom.jam.instance;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, least-recently-used cache of decoded chunks, shared between every instance that loads the same world.
+ * <br>
+ * The bound is the number of chunks, configurable with {@code -Dtower.chunkCacheSize} (default 4096).
+ */
+public final class ChunkCache {
+
+    /**
+     * The cache used by the lobby and the game instances.
+     */
+    public static final ChunkCache SHARED = new ChunkCache(Integer.getInteger("tower.chunkCacheSize", 4096));
+
+    private record Key(@NotNull Path world, int chunkX, int chunkZ) {
+    }
+
+    private final Map<Key, ChunkSnapshot> entries;
+
+    public ChunkCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ChunkSnapshot> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached snapshot, decoding it with the given supplier on a miss.
+     * Decoding happens outside the lock, so two threads may both decode the same chunk; the snapshots are identical.
+     */
+    public @Nullable ChunkSnapshot get(@NotNull Path world, int chunkX, int chunkZ, @NotNull Supplier<@Nullable ChunkSnapshot> decoder) {
+        final Key key = new Key(world, chunkX, chunkZ);
+
+        synchronized (entries) {
+            final ChunkSnapshot cached = entries.get(key);
+            if (cached != null) return cached;
+        }
+
+        final ChunkSnapshot snapshot = decoder.get();
+        if (snapshot == null) return null;
+
+        synchronized (entries) {
+            entries.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package net.minestom.jam.instance;
+
+import net.kyori.adventure.nbt.BinaryTag;
+import net.kyori.adventure.nbt.CompoundBinaryTag;
+import net.kyori.adventure.nbt.ListBinaryTag;
+import net.kyori.adventure.nbt.StringBinaryTag;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.instance.Chunk;
+import net.minestom.server.instance.block.Block;
+import net.minestom.server.instance.block.BlockHandler;
+import net.minestom.server.registry.RegistryKey;
+import net.minestom.server.world.biome.Biome;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable, decoded copy of an anvil chunk.
+ * <br>
+ * Block states are resolved to state IDs once, while the packed palette indices are kept exactly as they are stored
+ * on disk, so a snapshot is cheap to keep around and can be copied into any number of chunks. The sky and block light
+ * baked into the region file are kept as well, since nothing recomputes them for plain chunks.
+ */
+public record ChunkSnapshot(int chunkX, int chunkZ, @NotNull Section[] sections, @NotNull BlockEntity[] blockEntities) {
+
+    private static final Map<String, Integer> BIOME_IDS = new ConcurrentHashMap<>();
+
+    /**
+     * A single 16x16x16 section. The data arrays are null when the palette only contains one entry, and the light
+     * arrays (2048 nibbles each) are null when the region file has none for the section.
+     */
+    public record Section(int y, int @NotNull [] blockPalette, long @Nullable [] blockData,
+                          @NotNull String[] biomePalette, long @Nullable [] biomeData,
+                          byte @Nullable [] skyLight, byte @Nullable [] blockLight) {
+
+        public int blockBits() {
+            return Math.max(4, bitsFor(blockPalette.length));
+        }
+
+        public int biomeBits() {
+            return bitsFor(biomePalette.length);
+        }
+    }
+
+    /**
+     * A block entity, with the position in world coordinates and the handler key as found in the region file.
+     */
+    public record BlockEntity(int x, int y, int z, @Nullable String id, @NotNull CompoundBinaryTag data) {
+    }
+
+    /**
+     * Decodes the NBT of a chunk as stored in a region file.
+     *
+     * @return the snapshot, or null if the chunk has not finished generating
+     */
+    public static @Nullable ChunkSnapshot decode(@NotNull CompoundBinaryTag nbt) {
+        final String status = nbt.getString("Status", "minecraft:full");
+        if (!status.equals("minecraft:full") && !status.equals("full")) return null;
+
+        final int chunkX = nbt.getInt("xPos");
+        final int chunkZ = nbt.getInt("zPos");
+
+        final ListBinaryTag sectionTags = nbt.getList("sections");
+        final Section[] sections = new Section[sectionTags.size()];
+        for (int i = 0; i < sectionTags.size(); i++) {
+            sections[i] = decodeSection(sectionTags.getCompound(i));
+        }
+
+        final ListBinaryTag blockEntityTags = nbt.getList("block_entities");
+        final BlockEntity[] blockEntities = new BlockEntity[blockEntityTags.size()];
+        for (int i = 0; i < blockEntityTags.size(); i++) {
+            final CompoundBinaryTag tag = blockEntityTags.getCompound(i);
+            final String id = tag.getString("id", "");
+
+            blockEntities[i] = new BlockEntity(
+                    tag.getInt("x"), tag.getInt("y"), tag.getInt("z"),
+                    id.isEmpty() ? null : id,
+                    tag.remove("x").remove("y").remove("z").remove("id").remove("keepPacked")
+            );
+        }
+
+        return new ChunkSnapshot(chunkX, chunkZ, sections, blockEntities);
+    }
+
+    private static @NotNull Section decodeSection(@NotNull CompoundBinaryTag tag) {
+        final CompoundBinaryTag blockStates = tag.getCompound("block_states");
+        final ListBinaryTag blockPaletteTag = blockStates.getList("palette");
+
+        final int[] blockPalette;
+        if (blockPaletteTag.size() == 0) {
+            blockPalette = new int[]{Block.AIR.stateId()};
+        } else {
+            blockPalette = new int[blockPaletteTag.size()];
+            for (int i = 0; i < blockPalette.length; i++) {
+                blockPalette[i] = decodeBlock(blockPaletteTag.getCompound(i)).stateId();
+            }
+        }
+
+        final CompoundBinaryTag biomes = tag.getCompound("biomes");
+        final ListBinaryTag biomePaletteTag = biomes.getList("palette");
+
+        final String[] biomePalette;
+        if (biomePaletteTag.size() == 0) {
+            biomePalette = new String[]{Biome.PLAINS.key().asString()};
+        } else {
+            biomePalette = new String[biomePaletteTag.size()];
+            for (int i = 0; i < biomePalette.length; i++) {
+                biomePalette[i] = ((StringBinaryTag) biomePaletteTag.get(i)).value();
+            }
+        }
+
+        final long[] blockData = blockStates.getLongArray("data");
+        final long[] biomeData = biomes.getLongArray("data");
+        final byte[] skyLight = tag.getByteArray("SkyLight");
+        final byte[] blockLight = tag.getByteArray("BlockLight");
+
+        return new Section(
+                tag.getByte("Y"),
+                blockPalette,
+                blockPalette.length > 1 && blockData.length > 0 ? blockData : null,
+                biomePalette,
+                biomePalette.length > 1 && biomeData.length > 0 ? biomeData : null,
+                skyLight.length > 0 ? skyLight : null,
+                blockLight.length > 0 ? blockLight : null
+        );
+    }
+
+    private static @NotNull Block decodeBlock(@NotNull CompoundBinaryTag tag) {
+        Block block = Block.fromKey(tag.getString("Name"));
+        if (block == null) return Block.AIR;
+
+        final CompoundBinaryTag properties = tag.getCompound("Properties");
+        if (properties.size() == 0) return block;
+
+        Map<String, String> values = new HashMap<>();
+        for (Map.Entry<String, ? extends BinaryTag> entry : properties) {
+            if (entry.getValue() instanceof StringBinaryTag value) values.put(entry.getKey(), value.value());
+        }
+        return block.withProperties(values);
+    }
+
+    /**
+     * Copies this snapshot into a freshly created chunk.
+     * Palettes are written directly, so only block entities go through {@link Chunk#setBlock(int, int, int, Block)}.
+     */
+    public void apply(@NotNull Chunk chunk) {
+        for (Section section : sections) {
+            if (section.y() < chunk.getMinSection() || section.y() >= chunk.getMaxSection()) continue;
+
+            final net.minestom.server.instance.Section target = chunk.getSection(section.y());
+
+            final int[] blockPalette = section.blockPalette();
+            final long[] blockData = section.blockData();
+            if (blockData == null) {
+                target.blockPalette().fill(blockPalette[0]);
+            } else {
+                final int bits = section.blockBits();
+                target.blockPalette().setAll((x, y, z) -> blockPalette[unpack(blockData, bits, (y << 8) | (z << 4) | x)]);
+            }
+
+            final String[] biomePalette = section.biomePalette();
+            final long[] biomeData = section.biomeData();
+            if (biomeData == null) {
+                target.biomePalette().fill(biomeId(biomePalette[0]));
+            } else {
+                final int bits = section.biomeBits();
+                final int[] ids = new int[biomePalette.length];
+                for (int i = 0; i < ids.length; i++) ids[i] = biomeId(biomePalette[i]);
+
+                target.biomePalette().setAll((x, y, z) -> ids[unpack(biomeData, bits, (y << 4) | (z << 2) | x)]);
+            }
+
+            // Copied, since the section owns its light arrays and the snapshot is shared
+            if (section.skyLight() != null) target.setSkyLight(section.skyLight().clone());
+            if (section.blockLight() != null) target.setBlockLight(section.blockLight().clone());
+        }
+
+        for (BlockEntity blockEntity : blockEntities) {
+            Block block = chunk.getBlock(blockEntity.x(), blockEntity.y(), blockEntity.z());
+
+            if (blockEntity.id() != null) {
+                final BlockHandler handler = MinecraftServer.getBlockManager().getHandlerOrDummy(blockEntity.id());
+                block = block.withHandler(handler);
+            }
+            if (blockEntity.data().size() > 0) {
+                block = block.withNbt(blockEntity.data());
+            }
+
+            chunk.setBlock(blockEntity.x(), blockEntity.y(), blockEntity.z(), block);
+        }
+    }
+
+    /**
+     * Reads an entry from a long array packed the way anvil does it (entries never span two longs).
+     */
+    static int unpack(long @NotNull [] data, int bits, int index) {
+        final int perLong = 64 / bits;
+        final long value = data[index / perLong] >>> ((index % perLong) * bits);
+        return (int) (value & ((1L << bits) - 1));
+    }
+
+    static int bitsFor(int paletteSize) {
+        return paletteSize <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(paletteSize - 1);
+    }
+
+    private static int biomeId(@NotNull String name) {
+        return BIOME_IDS.computeIfAbsent(name, key -> {
+            final var registry = MinecraftServer.getBiomeRegistry();
+            final int id = registry.getId(RegistryKey.unsafeOf(key));
+            return id != -1 ? id : registry.getId(Biome.PLAINS);
+        });
+    }
+}
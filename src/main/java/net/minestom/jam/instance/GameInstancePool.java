@@ -0,0 +1,158 @@
+package net.minestom.jam.instance;
+
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.coordinate.Point;
+import net.minestom.server.entity.Entity;
+import net.minestom.server.entity.Player;
+import net.minestom.server.event.EventFilter;
+import net.minestom.server.event.EventNode;
+import net.minestom.server.event.trait.InstanceEvent;
+import net.minestom.server.event.player.PlayerBlockBreakEvent;
+import net.minestom.server.event.player.PlayerBlockPlaceEvent;
+import net.minestom.server.instance.Chunk;
+import net.minestom.server.instance.ChunkLoader;
+import net.minestom.server.instance.InstanceContainer;
+import net.minestom.server.instance.block.Block;
+import net.minestom.server.utils.chunk.ChunkUtils;
+import net.minestom.server.world.DimensionType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Consumer;
+
+/**
+ * Keeps finished game instances around for reuse instead of creating a new one for every match.
+ * <br>
+ * Changed chunks are tracked per instance: those where players placed or broke blocks, and those changed through the
+ * instance's {@code setBlock}, e.g. by a game. Releasing an instance removes every entity and unloads those chunks, so
+ * they are reloaded from the {@link BinaryWorld} the next time they're needed. Instances beyond the pool size are
+ * unregistered.
+ * <br>
+ * Changes that bypass the instance, such as block batches or writing to a {@link net.minestom.server.instance.Chunk}
+ * directly, aren't seen; mark those chunks with {@link #markDirty(InstanceContainer, Point)}.
+ */
+public final class GameInstancePool {
+
+    private final BinaryWorld world;
+    private final int maxIdle;
+    private final Consumer<InstanceContainer> initializer;
+    private final Deque<InstanceContainer> idle = new ConcurrentLinkedDeque<>();
+
+    /**
+     * @param initializer called once for every newly created instance, e.g. to set the time
+     */
+    public GameInstancePool(@NotNull BinaryWorld world, int maxIdle, @NotNull Consumer<InstanceContainer> initializer) {
+        this.world = world;
+        this.maxIdle = maxIdle;
+        this.initializer = initializer;
+    }
+
+    /**
+     * Returns an idle instance, or creates a new one if there are none.
+     */
+    public @NotNull InstanceContainer acquire() {
+        InstanceContainer instance = idle.pollFirst();
+        if (instance != null) return instance;
+
+        return create();
+    }
+
+    /**
+     * Fills the pool with new instances and loads their chunks at the given points, so the first matches don't wait
+     * on either.
+     */
+    public @NotNull CompletableFuture<Void> warmup(@NotNull Collection<? extends Point> points) {
+        final List<CompletableFuture<Chunk>> chunks = new ArrayList<>();
+        while (idle.size() < maxIdle) {
+            final InstanceContainer instance = create();
+            for (Point point : points) {
+                chunks.add(instance.loadChunk(point.chunkX(), point.chunkZ()));
+            }
+            idle.addLast(instance);
+        }
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new));
+    }
+
+    private @NotNull InstanceContainer create() {
+        final TrackedInstance tracked = new TrackedInstance(world);
+        MinecraftServer.getInstanceManager().registerInstance(tracked);
+        initializer.accept(tracked);
+
+        // Placing and breaking don't go through setBlock
+        EventNode<InstanceEvent> tracking = EventNode.type("dirty-chunks", EventFilter.INSTANCE);
+        tracking.addListener(PlayerBlockPlaceEvent.class, event -> tracked.markDirty(event.getBlockPosition()))
+                .addListener(PlayerBlockBreakEvent.class, event -> tracked.markDirty(event.getBlockPosition()));
+        tracked.eventNode().addChild(tracking);
+
+        return tracked;
+    }
+
+    /**
+     * Marks the chunk at a position as changed, for changes made without the instance's {@code setBlock}. Does nothing
+     * for instances that don't come from a pool.
+     */
+    public static void markDirty(@NotNull InstanceContainer instance, @NotNull Point position) {
+        if (instance instanceof TrackedInstance tracked) tracked.markDirty(position);
+    }
+
+    /**
+     * Resets an instance and returns it to the pool. Must be called once every player has left the instance;
+     * if some are still being moved out, the release is retried on the next tick.
+     */
+    public void release(@NotNull InstanceContainer instance) {
+        if (!instance.getPlayers().isEmpty()) {
+            MinecraftServer.getSchedulerManager().scheduleNextTick(() -> release(instance));
+            return;
+        }
+
+        for (Entity entity : instance.getEntities()) {
+            if (!(entity instanceof Player)) entity.remove();
+        }
+
+        if (instance instanceof TrackedInstance tracked) {
+            for (long index : tracked.dirty) {
+                instance.unloadChunk(ChunkUtils.getChunkCoordX(index), ChunkUtils.getChunkCoordZ(index));
+            }
+            tracked.dirty.clear();
+        }
+
+        if (idle.size() < maxIdle) {
+            idle.addLast(instance);
+        } else {
+            MinecraftServer.getInstanceManager().unregisterInstance(instance);
+        }
+    }
+
+    public int idleCount() {
+        return idle.size();
+    }
+
+    /**
+     * An instance that remembers which chunks had blocks set through it.
+     */
+    private static final class TrackedInstance extends InstanceContainer {
+        private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+        private TrackedInstance(@NotNull ChunkLoader loader) {
+            super(UUID.randomUUID(), DimensionType.OVERWORLD, loader);
+        }
+
+        @Override
+        public void setBlock(int x, int y, int z, @NotNull Block block, boolean doBlockUpdates) {
+            dirty.add(ChunkUtils.getChunkIndex(x >> 4, z >> 4));
+            super.setBlock(x, y, z, block, doBlockUpdates);
+        }
+
+        private void markDirty(@NotNull Point position) {
+            dirty.add(ChunkUtils.getChunkIndex(position.chunkX(), position.chunkZ()));
+        }
+    }
+}
@@ -1,19 +1,40 @@
 package net.minestom.jam.instance;
 
 import net.minestom.server.MinecraftServer;
+import net.minestom.server.ServerFlag;
 import net.minestom.server.coordinate.Pos;
 import net.minestom.server.entity.Player;
+import net.minestom.server.event.EventFilter;
+import net.minestom.server.event.EventNode;
 import net.minestom.server.event.instance.AddEntityToInstanceEvent;
+import net.minestom.server.event.trait.InstanceEvent;
 import net.minestom.server.event.player.PlayerBlockBreakEvent;
 import net.minestom.server.event.player.PlayerMoveEvent;
+import net.minestom.server.instance.Chunk;
 import net.minestom.server.instance.Instance;
-import net.minestom.server.instance.anvil.AnvilLoader;
+import net.minestom.server.instance.InstanceContainer;
+import net.minestom.server.instance.SharedInstance;
+import net.minestom.server.timer.TaskSchedule;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The lobby world. Loads an anvil world from the path {@code ./lobby}.
+ * <br>
+ * Players are spread over shards: {@link SharedInstance}s of one container, so the chunks are only loaded once but
+ * each shard only tracks and broadcasts its own players. New players go to the least-loaded shard, a new shard is
+ * created once every shard is full ({@code -Dtower.lobbyShardSize}, 100 by default). Nearly empty shards (at most
+ * {@code -Dtower.lobbyMergeSize} players, a tenth of a shard by default) stop taking new players and are dropped once
+ * the last one leaves. Nobody is moved between shards while standing in the lobby; players only change shards when
+ * they come back from a game.
  */
 public final class Lobby {
 
@@ -22,19 +43,48 @@ public final class Lobby {
      */
     public static final Pos SPAWN_POINT = new Pos(0.5, 67, 0.5, 0, 0);
 
-    public static final Instance INSTANCE = createLobbyInstance();
+    private static final int SHARD_SIZE = Integer.getInteger("tower.lobbyShardSize", 100);
+    private static final int MERGE_SIZE = Integer.getInteger("tower.lobbyMergeSize", SHARD_SIZE / 10);
+    private static final int PRELOAD_RADIUS = Integer.getInteger("tower.lobbyPreloadRadius", ServerFlag.CHUNK_VIEW_DISTANCE);
 
-    private static Instance createLobbyInstance() {
-        Instance instance = MinecraftServer.getInstanceManager().createInstanceContainer(
-                new AnvilLoader(Path.of("lobby"))
+    private static final InstanceContainer CONTAINER = createLobbyContainer();
+
+    /**
+     * Every shard along with the number of players on their way into it, which are not in its player list yet.
+     */
+    private static final Map<SharedInstance, AtomicInteger> SHARDS = new ConcurrentHashMap<>();
+    private static final Set<SharedInstance> DRAINING = ConcurrentHashMap.newKeySet();
+    private static final Map<Player, SharedInstance> ARRIVING = new ConcurrentHashMap<>();
+
+    static {
+        MinecraftServer.getSchedulerManager().buildTask(Lobby::mergeShards)
+                .repeat(TaskSchedule.seconds(10))
+                .schedule();
+    }
+
+    private Lobby() {
+    }
+
+    private static InstanceContainer createLobbyContainer() {
+        InstanceContainer instance = MinecraftServer.getInstanceManager().createInstanceContainer(
+                new MappedRegionLoader(Path.of("lobby"))
         );
 
         instance.setTimeRate(0);
         instance.setTime(6000); // Noon
 
-        instance.eventNode().addListener(AddEntityToInstanceEvent.class, event -> {
+        return instance;
+    }
+
+    private static SharedInstance createShard() {
+        SharedInstance shard = MinecraftServer.getInstanceManager().createSharedInstance(CONTAINER);
+
+        EventNode<InstanceEvent> events = EventNode.type("lobby", EventFilter.INSTANCE);
+        events.addListener(AddEntityToInstanceEvent.class, event -> {
             if (!(event.getEntity() instanceof Player player)) return;
 
+            arrived(player, shard);
+
             onJoin(player);
         }).addListener(PlayerMoveEvent.class, event -> {
             final Player player = event.getPlayer();
@@ -45,8 +95,124 @@ public final class Lobby {
         }).addListener(PlayerBlockBreakEvent.class, event -> {
             event.setCancelled(true);
         });
+        shard.eventNode().addChild(events);
 
-        return instance;
+        SHARDS.put(shard, new AtomicInteger());
+        return shard;
+    }
+
+    private static int load(@NotNull SharedInstance shard, @NotNull AtomicInteger arriving) {
+        return shard.getPlayers().size() + arriving.get();
+    }
+
+    private static void arrived(@NotNull Player player, @NotNull SharedInstance shard) {
+        if (!ARRIVING.remove(player, shard)) return;
+
+        final AtomicInteger arriving = SHARDS.get(shard);
+        if (arriving != null) arriving.decrementAndGet();
+    }
+
+    /**
+     * Returns the least-loaded shard with room for one more player, creating one if they're all full. The player is
+     * counted towards the shard right away, so it must be placed there.
+     */
+    public static synchronized @NotNull Instance pickShard(@NotNull Player player) {
+        SharedInstance best = null;
+        int bestLoad = Integer.MAX_VALUE;
+
+        for (Map.Entry<SharedInstance, AtomicInteger> entry : SHARDS.entrySet()) {
+            final int load = load(entry.getKey(), entry.getValue());
+            if (load < SHARD_SIZE && load < bestLoad) {
+                best = entry.getKey();
+                bestLoad = load;
+            }
+        }
+
+        if (best == null) best = createShard();
+
+        final SharedInstance previous = ARRIVING.get(player);
+        if (previous != null) arrived(player, previous);
+
+        ARRIVING.put(player, best);
+        SHARDS.get(best).incrementAndGet();
+        return best;
+    }
+
+    /**
+     * Loads the chunks within {@code -Dtower.lobbyPreloadRadius} (the view distance by default) of the spawn point, all
+     * at once. Shards share the container's chunks, so they stay loaded for every shard.
+     */
+    public static @NotNull CompletableFuture<Void> preload() {
+        final int centerX = SPAWN_POINT.chunkX();
+        final int centerZ = SPAWN_POINT.chunkZ();
+
+        final List<CompletableFuture<Chunk>> chunks = new ArrayList<>();
+        for (int x = -PRELOAD_RADIUS; x <= PRELOAD_RADIUS; x++) {
+            for (int z = -PRELOAD_RADIUS; z <= PRELOAD_RADIUS; z++) {
+                chunks.add(CONTAINER.loadChunk(centerX + x, centerZ + z));
+            }
+        }
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Sends a player to the spawn of the least-loaded shard.
+     */
+    public static @NotNull CompletableFuture<Void> send(@NotNull Player player) {
+        return player.setInstance(pickShard(player), SPAWN_POINT);
+    }
+
+    public static boolean isLobby(@NotNull Instance instance) {
+        return instance instanceof SharedInstance shard && (SHARDS.containsKey(shard) || DRAINING.contains(shard));
+    }
+
+    public static int shardCount() {
+        return SHARDS.size();
+    }
+
+    /**
+     * Drains the emptiest shard when it is nearly empty and the others have room for its players, and drops drained
+     * shards once they're empty. Players in a draining shard stay there until they leave for a game, since moving them
+     * would show them a respawn.
+     */
+    private static synchronized void mergeShards() {
+        // Players that disconnected on their way in
+        ARRIVING.forEach((player, shard) -> {
+            if (!player.isOnline()) arrived(player, shard);
+        });
+
+        DRAINING.removeIf(shard -> {
+            if (!shard.getPlayers().isEmpty()) return false;
+
+            MinecraftServer.getInstanceManager().unregisterInstance(shard);
+            return true;
+        });
+
+        if (SHARDS.size() <= 1) return;
+
+        SharedInstance emptiest = null;
+        int emptiestLoad = Integer.MAX_VALUE;
+        int totalLoad = 0;
+
+        for (Map.Entry<SharedInstance, AtomicInteger> entry : SHARDS.entrySet()) {
+            final int load = load(entry.getKey(), entry.getValue());
+            totalLoad += load;
+            if (load < emptiestLoad) {
+                emptiest = entry.getKey();
+                emptiestLoad = load;
+            }
+        }
+
+        // Only merge when the remaining shards can take everyone with room to spare
+        if (emptiest == null || emptiestLoad > MERGE_SIZE) return;
+        if (totalLoad > (SHARDS.size() - 1) * SHARD_SIZE * 3 / 4) return;
+
+        // Players are still on their way in; try again next time
+        if (SHARDS.get(emptiest).get() > 0) return;
+
+        // New players no longer go there, and it is dropped once everyone has left
+        SHARDS.remove(emptiest);
+        DRAINING.add(emptiest);
     }
 
     private static void onJoin(@NotNull Player player) {
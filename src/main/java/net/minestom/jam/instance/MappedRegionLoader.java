@@ -0,0 +1,162 @@
+package net.minestom.jam.instance;
+
+import net.kyori.adventure.nbt.BinaryTagIO;
+import net.kyori.adventure.nbt.CompoundBinaryTag;
+import net.minestom.server.instance.Chunk;
+import net.minestom.server.instance.ChunkLoader;
+import net.minestom.server.instance.Instance;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A read-only anvil loader that memory-maps region files instead of reading them through a {@link java.io.RandomAccessFile}.
+ * <br>
+ * Decoded chunks are kept in a {@link ChunkCache}, so every instance of the same world shares them. Chunks are never
+ * saved; the maps in {@code ./game} and {@code ./lobby} are not supposed to change on disk.
+ */
+public final class MappedRegionLoader implements ChunkLoader {
+
+    private static final int SECTOR_SIZE = 4096;
+
+    private static final byte COMPRESSION_GZIP = 1;
+    private static final byte COMPRESSION_ZLIB = 2;
+    private static final byte COMPRESSION_NONE = 3;
+
+    private final Path world;
+    private final ChunkCache cache;
+    private final Map<Long, Optional<MappedByteBuffer>> regions = new ConcurrentHashMap<>();
+
+    public MappedRegionLoader(@NotNull Path world) {
+        this(world, ChunkCache.SHARED);
+    }
+
+    public MappedRegionLoader(@NotNull Path world, @NotNull ChunkCache cache) {
+        this.world = world.toAbsolutePath().normalize();
+        this.cache = cache;
+    }
+
+    @Override
+    public @Nullable Chunk loadChunk(@NotNull Instance instance, int chunkX, int chunkZ) {
+        final ChunkSnapshot snapshot = snapshot(chunkX, chunkZ);
+        if (snapshot == null) return null;
+
+        final Chunk chunk = instance.getChunkSupplier().createChunk(instance, chunkX, chunkZ);
+        synchronized (chunk) {
+            snapshot.apply(chunk);
+        }
+        return chunk;
+    }
+
+    @Override
+    public void saveChunk(@NotNull Chunk chunk) {
+        // Read-only
+    }
+
+    @Override
+    public boolean supportsParallelLoading() {
+        return true;
+    }
+
+    /**
+     * Returns the decoded chunk at the given coordinates, or null if the region file does not contain it.
+     */
+    public @Nullable ChunkSnapshot snapshot(int chunkX, int chunkZ) {
+        return cache.get(world, chunkX, chunkZ, () -> {
+            final CompoundBinaryTag nbt = readChunk(chunkX, chunkZ);
+            return nbt != null ? ChunkSnapshot.decode(nbt) : null;
+        });
+    }
+
+    /**
+     * Reads the raw NBT of a chunk straight from the mapped region file.
+     */
+    public @Nullable CompoundBinaryTag readChunk(int chunkX, int chunkZ) {
+        final MappedByteBuffer region = region(chunkX >> 5, chunkZ >> 5);
+        if (region == null) return null;
+
+        final int location = region.getInt(((chunkX & 31) + (chunkZ & 31) * 32) * 4);
+        final int offset = (location >>> 8) * SECTOR_SIZE;
+        if (offset == 0 || offset + 5 > region.capacity()) return null;
+
+        final int length = region.getInt(offset) - 1;
+        final byte compression = region.get(offset + 4);
+        if (length <= 0 || offset + 5 + length > region.capacity()) return null;
+
+        final BinaryTagIO.Compression type = switch (compression) {
+            case COMPRESSION_GZIP -> BinaryTagIO.Compression.GZIP;
+            case COMPRESSION_ZLIB -> BinaryTagIO.Compression.ZLIB;
+            case COMPRESSION_NONE -> BinaryTagIO.Compression.NONE;
+            default -> throw new IllegalStateException("Unsupported chunk compression " + compression
+                    + " for chunk " + chunkX + ", " + chunkZ + " in " + world);
+        };
+
+        try {
+            return BinaryTagIO.unlimitedReader().read(new BufferInputStream(region.slice(offset + 5, length)), type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read chunk " + chunkX + ", " + chunkZ + " in " + world, e);
+        }
+    }
+
+    private @Nullable MappedByteBuffer region(int regionX, int regionZ) {
+        final long key = ((long) regionX << 32) | (regionZ & 0xFFFFFFFFL);
+
+        return regions.computeIfAbsent(key, ignored -> {
+            final Path file = world.resolve("region").resolve("r." + regionX + "." + regionZ + ".mca");
+            if (!Files.isRegularFile(file)) return Optional.empty();
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // The mapping stays valid after the channel is closed
+                return Optional.of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map region file " + file, e);
+            }
+        }).orElse(null);
+    }
+
+    public @NotNull Path getWorld() {
+        return world;
+    }
+
+    /**
+     * A minimal stream over a buffer slice, so decompression reads straight from the mapping.
+     */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(@NotNull ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte @NotNull [] bytes, int off, int len) {
+            if (!buffer.hasRemaining()) return -1;
+
+            len = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package net.minestom.jam.journal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free queue for many producers and a single consumer.
+ * <br>
+ * Producers claim a slot with one CAS and never wait; when the ring is full the element is dropped and counted
+ * instead, since blocking the tick thread would be worse than losing a stat. The consumer only reads slots whose
+ * element has been published, so a producer that claimed a slot but hasn't written it yet just ends a drain early.
+ */
+final class EventRing<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong(); // Next slot to claim
+    private final AtomicLong tail = new AtomicLong(); // Next slot to read, only written by the consumer
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    EventRing(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds an element, or drops it if the ring is full.
+     *
+     * @return whether it was added
+     */
+    boolean offer(@NotNull T element) {
+        long claimed;
+        do {
+            claimed = head.get();
+
+            // The consumer hasn't freed this slot yet
+            if (claimed - tail.get() > mask || slots.get((int) claimed & mask) != null) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!head.compareAndSet(claimed, claimed + 1));
+
+        slots.lazySet((int) claimed & mask, element);
+        return true;
+    }
+
+    /**
+     * Passes every published element to the consumer, in order. Only one thread may drain.
+     *
+     * @return the number of elements drained
+     */
+    int drain(@NotNull Consumer<T> consumer) {
+        int count = 0;
+        long next = tail.get();
+        while (true) {
+            final int index = (int) next & mask;
+            final T element = slots.get(index);
+            if (element == null) return count;
+
+            slots.lazySet(index, null);
+            tail.lazySet(++next);
+            count++;
+            consumer.accept(element);
+        }
+    }
+
+    /**
+     * Returns the number of elements dropped because the ring was full.
+     */
+    long dropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,66 @@
+package net.minestom.jam.journal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One entry of the {@link MatchJournal}. Every event has the same fields, so every entry has the same size on disk.
+ *
+ * @param type          what happened
+ * @param time          when it happened, in epoch milliseconds
+ * @param gameId        the game it happened in
+ * @param players       the number of players in the game afterwards, or at the start for {@link Type#END}
+ * @param bodies        the number of physics objects spawned so far
+ * @param duration      the time since the game started, in milliseconds
+ * @param peakTickNanos the longest game update so far, in nanoseconds
+ */
+public record MatchEvent(@NotNull Type type, long time, int gameId, int players, int bodies, long duration,
+                         long peakTickNanos) {
+
+    /**
+     * The size of an encoded event, in bytes.
+     */
+    public static final int SIZE = 1 + 8 + 4 + 4 + 4 + 8 + 8;
+
+    public enum Type {
+        START, PLAYER_LEFT, END;
+
+        private static final Type[] VALUES = values();
+
+        /**
+         * The type code on disk. 0 marks the end of the log, so codes start at 1.
+         */
+        byte code() {
+            return (byte) (ordinal() + 1);
+        }
+
+        static @NotNull Type fromCode(byte code) {
+            return VALUES[code - 1];
+        }
+    }
+
+    void write(@NotNull ByteBuffer buffer) {
+        buffer.put(type.code());
+        buffer.putLong(time);
+        buffer.putInt(gameId);
+        buffer.putInt(players);
+        buffer.putInt(bodies);
+        buffer.putLong(duration);
+        buffer.putLong(peakTickNanos);
+    }
+
+    /**
+     * Reads an event, or returns null at the end of the log.
+     */
+    static MatchEvent read(@NotNull ByteBuffer buffer) {
+        if (buffer.remaining() < SIZE) return null;
+
+        final byte code = buffer.get(buffer.position());
+        if (code <= 0 || code > Type.VALUES.length) return null;
+
+        buffer.get();
+        return new MatchEvent(Type.fromCode(code), buffer.getLong(), buffer.getInt(), buffer.getInt(),
+                buffer.getInt(), buffer.getLong(), buffer.getLong());
+    }
+}
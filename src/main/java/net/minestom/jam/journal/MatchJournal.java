@@ -0,0 +1,228 @@
+package net.minestom.jam.journal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An append-only log of match lifecycle events and stats, in {@code <tower.journalDirectory>/matches.journal}.
+ * <br>
+ * Games only put events in a lock-free ring, which never blocks and drops events if the writer falls that far behind.
+ * A background thread drains the ring once per second and appends the batch to the memory-mapped log. Once the log
+ * grows past {@code -Dtower.journalCompactSize} (16 MiB by default), it is compacted: finished matches keep only their
+ * {@link MatchEvent.Type#END END} event, which carries their totals, and only the most recent ones are kept.
+ * <br>
+ * Read the log with {@link MatchJournalReader}.
+ */
+public final class MatchJournal {
+
+    /**
+     * Whether matches are journaled, disabled with {@code -Dtower.journal=false}.
+     */
+    public static final boolean ENABLED = !"false".equals(System.getProperty("tower.journal"));
+    public static final Path FILE = Path.of(System.getProperty("tower.journalDirectory", "journal"), "matches.journal");
+
+    static final int MAGIC = 0x544D4A4C; // TMJL
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+
+    private static final long COMPACT_SIZE = Long.getLong("tower.journalCompactSize", 16L << 20);
+    private static final long MAP_CHUNK = 1L << 20;
+
+    private static final EventRing<MatchEvent> RING = new EventRing<>(4096);
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("journal-writer").daemon().factory());
+
+    // Writer thread only
+    private static FileChannel channel;
+    private static MappedByteBuffer mapped;
+    private static long mappedStart;
+    private static long written;
+    private static final ByteBuffer batch = ByteBuffer.allocateDirect(64 * MatchEvent.SIZE);
+
+    static {
+        if (ENABLED) {
+            WRITER.scheduleWithFixedDelay(MatchJournal::tryFlush, 1, 1, TimeUnit.SECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                WRITER.shutdown();
+                try {
+                    WRITER.awaitTermination(1, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+                tryFlush();
+            }));
+        }
+    }
+
+    private MatchJournal() {
+    }
+
+    /**
+     * Queues an event. Never blocks; safe from any thread.
+     */
+    public static void record(@NotNull MatchEvent event) {
+        if (ENABLED) RING.offer(event);
+    }
+
+    public static void gameStarted(int gameId, int players) {
+        record(new MatchEvent(MatchEvent.Type.START, System.currentTimeMillis(), gameId, players, 0, 0, 0));
+    }
+
+    public static void playerLeft(int gameId, int players, int bodies, long duration, long peakTickNanos) {
+        record(new MatchEvent(MatchEvent.Type.PLAYER_LEFT, System.currentTimeMillis(), gameId, players, bodies,
+                duration, peakTickNanos));
+    }
+
+    public static void gameEnded(int gameId, int players, int bodies, long duration, long peakTickNanos) {
+        record(new MatchEvent(MatchEvent.Type.END, System.currentTimeMillis(), gameId, players, bodies, duration,
+                peakTickNanos));
+    }
+
+    /**
+     * Returns the number of events dropped because the writer fell behind.
+     */
+    public static long droppedEvents() {
+        return RING.dropped();
+    }
+
+    /**
+     * Flushes, without letting a failure escape: the executor would otherwise cancel every later run. The batch that
+     * failed is lost, and the log is reopened on the next run.
+     */
+    private static synchronized void tryFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to write to the match journal " + FILE + ", retrying in a second");
+            e.printStackTrace();
+            reset();
+        }
+    }
+
+    private static synchronized void reset() {
+        batch.clear();
+        mapped = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+    private static synchronized void flush() {
+        try {
+            if (channel == null) open();
+
+            RING.drain(event -> {
+                if (batch.remaining() < MatchEvent.SIZE) appendBatch();
+                event.write(batch);
+            });
+            appendBatch();
+
+            if (written > COMPACT_SIZE) compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write to the match journal " + FILE, e);
+        }
+    }
+
+    /**
+     * Opens the log, creating it if needed, and finds where the last run stopped writing.
+     */
+    private static void open() throws IOException {
+        Files.createDirectories(FILE.toAbsolutePath().getParent());
+        channel = FileChannel.open(FILE, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        final long size = channel.size();
+        if (size < HEADER_SIZE) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            channel.write(header, 0);
+            written = HEADER_SIZE;
+        } else {
+            // The file may end with mapped zeroes if the server didn't shut down cleanly
+            written = HEADER_SIZE + (long) MatchJournalReader.read(channel).size() * MatchEvent.SIZE;
+        }
+        mapped = null;
+    }
+
+    private static void appendBatch() {
+        try {
+            writeBatch();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write to the match journal " + FILE, e);
+        }
+    }
+
+    private static void writeBatch() throws IOException {
+        batch.flip();
+        while (batch.hasRemaining()) {
+            if (mapped == null || !mapped.hasRemaining()) {
+                mappedStart = written;
+                mapped = channel.map(FileChannel.MapMode.READ_WRITE, mappedStart, MAP_CHUNK);
+            }
+
+            final int length = Math.min(batch.remaining(), mapped.remaining());
+            mapped.put(mapped.position(), batch, batch.position(), length);
+            mapped.position(mapped.position() + length);
+            batch.position(batch.position() + length);
+            written += length;
+        }
+        batch.clear();
+    }
+
+    /**
+     * Rewrites the log with the END events of the most recent matches, keeping every event of unfinished matches.
+     * Matches are dropped oldest first until the log is at most half the compaction size.
+     */
+    private static void compact() throws IOException {
+        final List<MatchEvent> events = MatchJournalReader.read(channel);
+        final List<MatchEvent> kept = MatchJournalReader.compact(events);
+
+        final int maxEvents = (int) (COMPACT_SIZE / 2 / MatchEvent.SIZE);
+        final List<MatchEvent> recent = kept.subList(Math.max(0, kept.size() - maxEvents), kept.size());
+
+        final Path temp = FILE.resolveSibling(FILE.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + recent.size() * MatchEvent.SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION);
+            for (MatchEvent event : recent) event.write(buffer);
+            out.write(buffer.flip());
+            out.force(true);
+        }
+
+        mapped = null;
+        channel.close();
+        Files.move(temp, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+    }
+
+    /**
+     * Forces everything queued so far to disk, e.g. before reading the log. Blocks until it's written.
+     */
+    public static void sync() {
+        if (!ENABLED) return;
+
+        try {
+            WRITER.submit(() -> {
+                flush();
+                if (mapped != null) mapped.force();
+            }).get();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to sync the match journal", e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package net.minestom.jam.journal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Reads the {@link MatchJournal}. The log can be read while the server is writing to it; events still in the writer's
+ * ring won't be there yet, call {@link MatchJournal#sync()} first to include them.
+ */
+public final class MatchJournalReader {
+
+    private MatchJournalReader() {
+    }
+
+    /**
+     * Reads every event of a log, oldest first. An empty list if the file doesn't exist.
+     */
+    public static @NotNull List<MatchEvent> read(@NotNull Path file) throws IOException {
+        if (!Files.exists(file)) return List.of();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel);
+        }
+    }
+
+    static @NotNull List<MatchEvent> read(@NotNull FileChannel channel) throws IOException {
+        final long size = channel.size();
+        if (size < MatchJournal.HEADER_SIZE) return List.of();
+
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (buffer.getInt() != MatchJournal.MAGIC) throw new IOException("Not a match journal");
+
+        final int version = buffer.getInt();
+        if (version != MatchJournal.VERSION) throw new IOException("Unsupported match journal version " + version);
+
+        final List<MatchEvent> events = new ArrayList<>((int) (size / MatchEvent.SIZE));
+        MatchEvent event;
+        while ((event = MatchEvent.read(buffer)) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * Reads the events matching a filter, oldest first.
+     */
+    public static @NotNull List<MatchEvent> query(@NotNull Path file, @NotNull Predicate<MatchEvent> filter) throws IOException {
+        final List<MatchEvent> matching = new ArrayList<>();
+        for (MatchEvent event : read(file)) {
+            if (filter.test(event)) matching.add(event);
+        }
+        return matching;
+    }
+
+    /**
+     * Reads the final stats of every finished match, oldest first.
+     */
+    public static @NotNull List<MatchEvent> finishedMatches(@NotNull Path file) throws IOException {
+        return query(file, event -> event.type() == MatchEvent.Type.END);
+    }
+
+    /**
+     * Reads the events of the finished matches that ended at or after a time.
+     */
+    public static @NotNull List<MatchEvent> finishedSince(@NotNull Path file, long epochMillis) throws IOException {
+        return query(file, event -> event.type() == MatchEvent.Type.END && event.time() >= epochMillis);
+    }
+
+    /**
+     * Drops every event of finished matches except their END event, keeping the order.
+     */
+    static @NotNull List<MatchEvent> compact(@NotNull List<MatchEvent> events) {
+        final Set<Integer> finished = new HashSet<>();
+        for (MatchEvent event : events) {
+            if (event.type() == MatchEvent.Type.END) finished.add(event.gameId());
+        }
+
+        final List<MatchEvent> kept = new ArrayList<>();
+        for (MatchEvent event : events) {
+            if (event.type() == MatchEvent.Type.END || !finished.contains(event.gameId())) kept.add(event);
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,52 @@
+package net.minestom.jam.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing counter. Increments are striped across cells, so they never contend.
+ */
+public final class Counter implements Metric {
+
+    private final String name;
+    private final String help;
+    private final LongAdder value = new LongAdder();
+
+    public Counter(@NotNull String name, @NotNull String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    @Override
+    public @NotNull String name() {
+        return name;
+    }
+
+    @Override
+    public @NotNull String help() {
+        return help;
+    }
+
+    @Override
+    public @NotNull String type() {
+        return "counter";
+    }
+
+    @Override
+    public void writeSamples(@NotNull StringBuilder out) {
+        out.append(name).append("_total ").append(value.sum()).append('\n');
+    }
+}
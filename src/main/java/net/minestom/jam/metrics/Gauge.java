@@ -0,0 +1,56 @@
+package net.minestom.jam.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Consumer;
+
+/**
+ * A value computed when the metrics are scraped. A gauge can emit several labelled samples.
+ */
+public final class Gauge implements Metric {
+
+    /**
+     * Receives the samples of a gauge.
+     */
+    @FunctionalInterface
+    public interface Samples {
+        /**
+         * @param labels the label set without braces, e.g. {@code game="3"}, or an empty string
+         */
+        void sample(@NotNull String labels, double value);
+    }
+
+    private final String name;
+    private final String help;
+    private final Consumer<Samples> collector;
+
+    public Gauge(@NotNull String name, @NotNull String help, @NotNull Consumer<Samples> collector) {
+        this.name = name;
+        this.help = help;
+        this.collector = collector;
+    }
+
+    @Override
+    public @NotNull String name() {
+        return name;
+    }
+
+    @Override
+    public @NotNull String help() {
+        return help;
+    }
+
+    @Override
+    public @NotNull String type() {
+        return "gauge";
+    }
+
+    @Override
+    public void writeSamples(@NotNull StringBuilder out) {
+        collector.accept((labels, value) -> {
+            out.append(name);
+            if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+            out.append(' ').append(value).append('\n');
+        });
+    }
+}
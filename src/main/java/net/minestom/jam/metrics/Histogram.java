@@ -0,0 +1,116 @@
+package net.minestom.jam.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of nanosecond durations with log-linear buckets, in the style of HdrHistogram.
+ * <br>
+ * Every power of two is split into 8 linear sub-buckets, so a recorded value is known to within 12.5%, over the whole
+ * range of a long, with a fixed array of counters. Recording is a couple of shifts and one atomic increment; the
+ * coarse Prometheus buckets are only computed when scraped.
+ */
+public final class Histogram implements Metric {
+
+    private static final int LINEAR = 16;
+    private static final int SUB_BUCKETS = 8;
+    private static final int BUCKETS = LINEAR + (63 - 4) * SUB_BUCKETS;
+
+    /**
+     * The exported bucket bounds, in seconds.
+     */
+    private static final double[] BOUNDS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.0166, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5
+    };
+
+    private final String name;
+    private final String help;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+
+    public Histogram(@NotNull String name, @NotNull String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+
+        counts.incrementAndGet(bucket(nanos));
+        sum.add(nanos);
+    }
+
+    static int bucket(long value) {
+        if (value < LINEAR) return (int) value;
+
+        final int msb = 63 - Long.numberOfLeadingZeros(value);
+        final int mantissa = (int) (value >>> (msb - 3)); // 8..15
+        return LINEAR + (msb - 4) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    /**
+     * The largest value that falls into the given bucket.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR) return bucket;
+
+        final int k = bucket - LINEAR;
+        final int msb = k / SUB_BUCKETS + 4;
+        final long mantissa = k % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << (msb - 3)) - 1;
+    }
+
+    /**
+     * Returns an estimate of the given percentile (0-100), in nanoseconds.
+     */
+    public long percentile(double percentile) {
+        long total = 0;
+        final long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) total += snapshot[i] = counts.get(i);
+        if (total == 0) return 0;
+
+        final long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return upperBound(i);
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    @Override
+    public @NotNull String name() {
+        return name;
+    }
+
+    @Override
+    public @NotNull String help() {
+        return help;
+    }
+
+    @Override
+    public @NotNull String type() {
+        return "histogram";
+    }
+
+    @Override
+    public void writeSamples(@NotNull StringBuilder out) {
+        long cumulative = 0;
+        int bucket = 0;
+
+        for (double bound : BOUNDS) {
+            final long boundNanos = (long) (bound * 1_000_000_000L);
+            while (bucket < BUCKETS && upperBound(bucket) <= boundNanos) {
+                cumulative += counts.get(bucket++);
+            }
+            out.append(name).append("_bucket{le=\"").append(bound).append("\"} ").append(cumulative).append('\n');
+        }
+        while (bucket < BUCKETS) cumulative += counts.get(bucket++);
+
+        out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+        out.append(name).append("_sum ").append(sum.sum() / 1_000_000_000.0).append('\n');
+        out.append(name).append("_count ").append(cumulative).append('\n');
+    }
+}
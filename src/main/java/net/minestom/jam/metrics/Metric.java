@@ -0,0 +1,23 @@
+package net.minestom.jam.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Something that can be written in the Prometheus text exposition format.
+ */
+public interface Metric {
+
+    @NotNull String name();
+
+    @NotNull String help();
+
+    /**
+     * The Prometheus type: {@code counter}, {@code gauge} or {@code histogram}.
+     */
+    @NotNull String type();
+
+    /**
+     * Writes every sample line of this metric, without the {@code # HELP} and {@code # TYPE} lines.
+     */
+    void writeSamples(@NotNull StringBuilder out);
+}
@@ -0,0 +1,34 @@
+package net.minestom.jam.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A set of metrics, written in registration order.
+ */
+public final class MetricsRegistry {
+
+    private final List<Metric> metrics = new CopyOnWriteArrayList<>();
+
+    public <T extends Metric> @NotNull T register(@NotNull T metric) {
+        metrics.add(metric);
+        return metric;
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format (version 0.0.4).
+     */
+    public @NotNull String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+
+        for (Metric metric : metrics) {
+            out.append("# HELP ").append(metric.name()).append(' ').append(metric.help()).append('\n');
+            out.append("# TYPE ").append(metric.name()).append(' ').append(metric.type()).append('\n');
+            metric.writeSamples(out);
+        }
+
+        return out.toString();
+    }
+}
@@ -0,0 +1,146 @@
+package net.minestom.jam.metrics;
+
+import net.minestom.jam.Game;
+import net.minestom.jam.PhysicsResources;
+import net.minestom.jam.Queue;
+import net.minestom.jam.Startup;
+import net.minestom.jam.TickRates;
+import net.minestom.jam.instance.Lobby;
+import net.minestom.jam.journal.MatchJournal;
+import net.minestom.jam.objects.MinecraftPhysicsObject;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.event.server.ServerTickMonitorEvent;
+import net.minestom.server.timer.TaskSchedule;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The server's metrics, exported at {@code http://127.0.0.1:9464/metrics} by default.
+ * <br>
+ * Counters and histograms are recorded directly from the hot path. Anything that needs to look at game state is
+ * sampled on the tick thread once per second instead, so a scrape never touches a physics space mid-step.
+ * Use {@code -Dtower.metrics.address} and {@code -Dtower.metrics.port} to change the endpoint, or a port of -1 to
+ * disable it.
+ */
+public final class TowerMetrics {
+
+    public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    public static final Histogram TICK_DURATION = REGISTRY.register(new Histogram(
+            "tower_tick_duration_seconds", "Duration of a full server tick."));
+
+    public static final Histogram GAME_UPDATE_DURATION = REGISTRY.register(new Histogram(
+            "tower_game_update_duration_seconds", "Duration of one game's update, including its physics step."));
+
+    public static final Histogram QUEUE_WAIT = REGISTRY.register(new Histogram(
+            "tower_queue_wait_seconds", "Time between joining a queue and its game starting."));
+
+    public static final Counter GAMES_STARTED = REGISTRY.register(new Counter(
+            "tower_games_started", "Games started since the server started."));
+
+    private record GameSample(int id, int bodies, int awake, int shulkers) {
+    }
+
+    private static volatile List<GameSample> games = List.of();
+    private static volatile int queuedPlayers = 0;
+    private static volatile int waitingQueues = 0;
+    private static volatile boolean saturated = false;
+
+    static {
+        REGISTRY.register(new Gauge("tower_games_active", "Games currently running.",
+                samples -> samples.sample("", games.size())));
+
+        REGISTRY.register(new Gauge("tower_physics_bodies", "Physics objects per game.",
+                samples -> games.forEach(game -> samples.sample(gameLabel(game), game.bodies()))));
+
+        REGISTRY.register(new Gauge("tower_physics_bodies_awake", "Active (not sleeping) physics objects per game.",
+                samples -> games.forEach(game -> samples.sample(gameLabel(game), game.awake()))));
+
+        REGISTRY.register(new Gauge("tower_physics_bodies_sleeping", "Sleeping physics objects per game.",
+                samples -> games.forEach(game -> samples.sample(gameLabel(game), game.bodies() - game.awake()))));
+
+        REGISTRY.register(new Gauge("tower_shulker_entities", "Shulker hitbox entities (holders included) per game.",
+                samples -> games.forEach(game -> samples.sample(gameLabel(game), game.shulkers()))));
+
+        REGISTRY.register(new Gauge("tower_queue_depth", "Players waiting in a queue.",
+                samples -> samples.sample("", queuedPlayers)));
+
+        REGISTRY.register(new Gauge("tower_admission_waiting", "Full queues waiting for room to start their game.",
+                samples -> samples.sample("", waitingQueues)));
+
+        REGISTRY.register(new Gauge("tower_admission_saturated", "Whether this node has no room for another game.",
+                samples -> samples.sample("", saturated ? 1 : 0)));
+
+        REGISTRY.register(new Gauge("tower_lobby_shards", "Lobby shards accepting players.",
+                samples -> samples.sample("", Lobby.shardCount())));
+
+        REGISTRY.register(new Gauge("tower_broadcast_interval_ticks", "Server ticks between two display updates.",
+                samples -> samples.sample("", TickRates.broadcastInterval())));
+
+        REGISTRY.register(new Gauge("tower_startup_seconds",
+                "Duration of each startup phase, and the time from JVM start to accepting players.", samples -> {
+            Startup.phases().forEach((phase, seconds) -> samples.sample("phase=\"" + phase + "\"", seconds));
+            samples.sample("phase=\"ready\"", Startup.timeToReady());
+        }));
+
+        REGISTRY.register(new Gauge("tower_journal_dropped_events", "Match journal events dropped because the writer fell behind.",
+                samples -> samples.sample("", MatchJournal.droppedEvents())));
+
+        REGISTRY.register(new Gauge("tower_native_objects", "Live native Bullet objects across every game.", samples -> {
+            final PhysicsResources.Counts counts = PhysicsResources.globalCounts();
+            samples.sample("type=\"space\"", counts.spaces());
+            samples.sample("type=\"body\"", counts.bodies());
+            samples.sample("type=\"shape\"", counts.shapes());
+            samples.sample("type=\"joint\"", counts.joints());
+        }));
+    }
+
+    private TowerMetrics() {
+    }
+
+    private static @NotNull String gameLabel(@NotNull GameSample game) {
+        return "game=\"" + game.id() + "\"";
+    }
+
+    /**
+     * Starts sampling and serves the metrics endpoint.
+     */
+    public static void install(@NotNull Queue.Manager queues) throws IOException {
+        MinecraftServer.getGlobalEventHandler().addListener(ServerTickMonitorEvent.class, event ->
+                TICK_DURATION.record((long) (event.getTickMonitor().getTickTime() * 1_000_000)));
+
+        MinecraftServer.getSchedulerManager().buildTask(() -> sample(queues))
+                .repeat(TaskSchedule.seconds(1))
+                .schedule();
+
+        final int port = Integer.getInteger("tower.metrics.port", 9464);
+        if (port < 0) return;
+
+        final String address = System.getProperty("tower.metrics.address", "127.0.0.1");
+        new MetricsServer(REGISTRY, new InetSocketAddress(address, port)).start();
+    }
+
+    private static void sample(@NotNull Queue.Manager queues) {
+        List<GameSample> samples = new ArrayList<>();
+
+        for (Game game : Game.GAMES) {
+            final List<MinecraftPhysicsObject> objects = game.getPhysics().getObjects();
+
+            int awake = 0;
+            for (MinecraftPhysicsObject object : objects) {
+                if (object.getCollisionObject().isActive()) awake++;
+            }
+
+            samples.add(new GameSample(game.getId(), objects.size(), awake, game.getShulkerEntityCount()));
+        }
+
+        games = List.copyOf(samples);
+        queuedPlayers = queues.queuedPlayerCount();
+        waitingQueues = queues.getAdmission().waitingCount();
+        saturated = queues.getAdmission().isSaturated();
+    }
+}
@@ -31,7 +31,7 @@ public class BlockRigidBody extends MinecraftPhysicsObject {
     }
 
     public void setScale(float scale) {
-        getCollisionObject().setCollisionShape(new BoxCollisionShape(scale * 0.5f, scale * 0.5f, scale * 0.5f));
+        getMcPhysics().getResources().setShape(getCollisionObject(), new BoxCollisionShape(scale * 0.5f, scale * 0.5f, scale * 0.5f));
         getEntity().editEntityMeta(ItemDisplayMeta.class, meta -> {
             meta.setWidth(scale * 2);
             meta.setHeight(scale * 2);
@@ -39,6 +39,10 @@ public class BlockRigidBody extends MinecraftPhysicsObject {
         });
     }
 
+    public @NotNull Block getBlock() {
+        return block;
+    }
+
     @Override
     public Entity createEntity() {
         if (!visible) return null;
@@ -48,10 +52,11 @@ public class BlockRigidBody extends MinecraftPhysicsObject {
         Entity entity = new Entity(EntityType.ITEM_DISPLAY);
         entity.setNoGravity(true);
 
+        final Material material = block.registry().material();
         entity.editEntityMeta(ItemDisplayMeta.class, meta -> {
             meta.setWidth(2);
             meta.setHeight(2);
-            meta.setItemStack(ItemStack.of(Material.DIAMOND_BLOCK));
+            meta.setItemStack(ItemStack.of(material != null ? material : Material.STONE));
             meta.setScale(getSize().mul(2));
         });
 
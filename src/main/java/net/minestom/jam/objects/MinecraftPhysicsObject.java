@@ -2,10 +2,13 @@ package net.minestom.jam.objects;
 
 import com.jme3.bullet.NativePhysicsObject;
 import com.jme3.bullet.collision.PhysicsCollisionObject;
+import com.jme3.bullet.collision.shapes.CollisionShape;
 import com.jme3.bullet.joints.PhysicsJoint;
 import com.jme3.bullet.objects.PhysicsRigidBody;
 import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
 import net.minestom.jam.MinecraftPhysics;
+import net.minestom.jam.PhysicsResources;
 import net.minestom.server.coordinate.Vec;
 import net.minestom.server.entity.Entity;
 import net.minestom.server.entity.metadata.display.AbstractDisplayMeta;
@@ -21,6 +24,7 @@ public abstract class MinecraftPhysicsObject {
 
     private final List<NativePhysicsObject> relatedObjects = new ArrayList<>();
 
+    private final int id;
     private final @NotNull MinecraftPhysics mcPhysics;
     private final @NotNull PhysicsCollisionObject collisionObject;
     private final @NotNull Vec size;
@@ -28,17 +32,21 @@ public abstract class MinecraftPhysicsObject {
     private boolean alwaysActive = false;
 
     public MinecraftPhysicsObject(@NotNull MinecraftPhysics mcPhysics, @NotNull PhysicsCollisionObject collisionObject, @NotNull Vec size) {
+        this.id = mcPhysics.nextObjectId();
         this.mcPhysics = mcPhysics;
         this.collisionObject = collisionObject;
         this.size = size;
 
-        mcPhysics.getPhysicsSpace().add(collisionObject);
+        mcPhysics.getResources().body(collisionObject);
+        mcPhysics.add(collisionObject);
         mcPhysics.addObject(this);
     }
 
     public Entity setInstance() {
         this.entity = createEntity();
         if (this.entity != null) {
+            this.entity.updateViewableRule(MinecraftPhysics.SPECTATOR_RULE);
+
             Transform transform = new Transform();
             collisionObject.getTransform(transform);
             this.entity.setInstance(mcPhysics.getInstance(), toVec(transform.getTranslation()));
@@ -46,31 +54,85 @@ public abstract class MinecraftPhysicsObject {
         return this.entity;
     }
 
+    /**
+     * Ties a joint, body or shape to this object, so it's tracked by the game's {@link PhysicsResources} and released
+     * along with the object.
+     */
     public void addRelated(NativePhysicsObject related) {
+        final PhysicsResources resources = mcPhysics.getResources();
+        switch (related) {
+            case PhysicsJoint joint -> resources.joint(joint);
+            case PhysicsCollisionObject body -> resources.body(body);
+            case CollisionShape shape -> resources.shape(shape);
+            default -> {
+            }
+        }
         this.relatedObjects.add(related);
     }
 
     public void destroy() {
+        final PhysicsResources resources = mcPhysics.getResources();
+
         if (collisionObject instanceof PhysicsRigidBody rigidBody) {
             for (PhysicsJoint physicsJoint : rigidBody.listJoints()) {
-                mcPhysics.getPhysicsSpace().remove(physicsJoint);
+                mcPhysics.remove(physicsJoint);
+                resources.release(physicsJoint);
             }
         }
 
         for (NativePhysicsObject relatedObject : relatedObjects) {
-            mcPhysics.getPhysicsSpace().remove(relatedObject);
+            mcPhysics.remove(relatedObject);
+            resources.release(relatedObject);
         }
-        mcPhysics.getPhysicsSpace().remove(collisionObject);
+        relatedObjects.clear();
+
+        mcPhysics.remove(collisionObject);
+        resources.release(collisionObject);
         mcPhysics.removeObject(this);
         if (entity != null) {
             entity.remove();
         }
     }
 
+    /**
+     * Returns the ID of this object, unique within its {@link MinecraftPhysics}.
+     */
+    public int getId() {
+        return id;
+    }
+
+    public @NotNull MinecraftPhysics getMcPhysics() {
+        return mcPhysics;
+    }
+
     public @NotNull PhysicsCollisionObject getCollisionObject() {
         return collisionObject;
     }
 
+    /**
+     * Applies an impulse at a point in world space, waking the body up. Does nothing for static or non-rigid bodies.
+     */
+    public void applyImpulse(@NotNull Vector3f impulse, @NotNull Vector3f point) {
+        if (!(collisionObject instanceof PhysicsRigidBody rigidBody) || rigidBody.getMass() == 0) return;
+
+        final Vector3f offset = point.subtract(rigidBody.getPhysicsLocation(null));
+        rigidBody.activate();
+        rigidBody.applyImpulse(impulse, offset);
+    }
+
+    /**
+     * Applies an impulse at the center of mass, waking the body up.
+     *
+     * @return false for static or non-rigid bodies, which can't be pushed
+     */
+    public boolean applyCentralImpulse(@NotNull Vector3f impulse) {
+        if (!(collisionObject instanceof PhysicsRigidBody rigidBody) || rigidBody.getMass() == 0) return false;
+
+        rigidBody.activate();
+        rigidBody.applyCentralImpulse(impulse);
+        return true;
+    }
+
     public void setAlwaysActive(boolean alwaysActive) {
         this.alwaysActive = alwaysActive;
     }
@@ -81,27 +143,41 @@ public abstract class MinecraftPhysicsObject {
         return entity;
     }
 
+    /**
+     * Returns every entity that shows this object, which is only {@link #getEntity()} unless a subclass shows it with
+     * several.
+     */
+    public @NotNull List<Entity> getEntities() {
+        return entity != null ? List.of(entity) : List.of();
+    }
+
     public @NotNull Vec getSize() {
         return size;
     }
 
-    public void update() {
-        if (entity == null) {
-            System.out.println("entity é null");
-            return;
-        }
-        if (!entity.isActive()) {
-            System.out.println("entity não está ativa");
-            return;
-        }
+    /**
+     * Called after the steps that don't broadcast, instead of {@link #update()}.
+     */
+    public void keepActive() {
         if (alwaysActive) collisionObject.activate(true);
+    }
+
+    /**
+     * Syncs the entity to the body. Called after the steps that broadcast.
+     */
+    public void update() {
+        keepActive();
+
+        // Invisible objects have nothing to sync, and entities may still be spawning
+        if (entity == null || !entity.isActive()) return;
 
+        final int interpolation = mcPhysics.getInterpolationTicks();
         entity.editEntityMeta(AbstractDisplayMeta.class, meta -> {
             Transform transform = new Transform();
             collisionObject.getTransform(transform);
 
-            meta.setTransformationInterpolationDuration(1);
-            meta.setPosRotInterpolationDuration(1);
+            meta.setTransformationInterpolationDuration(interpolation);
+            meta.setPosRotInterpolationDuration(interpolation);
             meta.setTransformationInterpolationStartDelta(0);
 
             entity.teleport(toPos(transform.getTranslation()));
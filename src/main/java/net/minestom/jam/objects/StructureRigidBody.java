@@ -0,0 +1,390 @@
+package net.minestom.jam.objects;
+
+import com.jme3.bullet.collision.shapes.BoxCollisionShape;
+import com.jme3.bullet.collision.shapes.CompoundCollisionShape;
+import com.jme3.bullet.objects.PhysicsRigidBody;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minestom.jam.MinecraftPhysics;
+import net.minestom.server.coordinate.Vec;
+import net.minestom.server.entity.Entity;
+import net.minestom.server.entity.EntityType;
+import net.minestom.server.entity.metadata.display.AbstractDisplayMeta;
+import net.minestom.server.entity.metadata.display.ItemDisplayMeta;
+import net.minestom.server.instance.block.Block;
+import net.minestom.server.item.ItemStack;
+import net.minestom.server.item.Material;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+import static net.minestom.jam.CoordinateUtils.*;
+
+/**
+ * Many blocks simulated as one rigid body, e.g. a tower, with one display entity per block.
+ * <br>
+ * The body has a compound shape with a box per block, so a structure of a hundred blocks costs one body and a handful
+ * of contact pairs instead of a hundred bodies resting on each other. When hit hard enough (see {@link #fracture}),
+ * the blocks around the impact break off as separate {@link BlockRigidBody}s, and parts no longer connected to the
+ * rest become structures of their own.
+ */
+public class StructureRigidBody extends MinecraftPhysicsObject {
+
+    /**
+     * The smallest impulse that breaks blocks off.
+     */
+    public static final float FRACTURE_IMPULSE = 8f;
+    private static final float MAX_FRACTURE_RADIUS = 2.5f;
+    private static final float FRAGMENT_PUSH = 1.5f;
+
+    /**
+     * One block of a structure, at integer coordinates on the structure's grid.
+     */
+    public record Part(int x, int y, int z, @NotNull Block block) {
+    }
+
+    /**
+     * How a structure breaks: the parts that break off as blocks, the pieces no longer connected to the rest, which
+     * become structures of their own, and the parts the structure keeps.
+     */
+    record Fracture(@NotNull List<Part> broken, @NotNull List<List<Part>> pieces, @NotNull List<Part> kept) {
+    }
+
+    private final List<Part> parts;
+    private final List<Entity> entities = new ArrayList<>();
+    private final float massPerBlock;
+    /**
+     * The center of mass on the grid, which is where the body's origin is.
+     */
+    private Vector3f center;
+    private boolean destroyed = false;
+
+    private final Vector3f location = new Vector3f();
+    private final Quaternion rotation = new Quaternion();
+    private final Vector3f offset = new Vector3f();
+
+    /**
+     * Creates a structure from blocks at world coordinates, e.g. copied from the instance.
+     */
+    public StructureRigidBody(@NotNull MinecraftPhysics mcPhysics, @NotNull List<Part> parts, float massPerBlock) {
+        this(mcPhysics, parts, massPerBlock, centerOf(parts), new Quaternion());
+    }
+
+    /**
+     * @param location the world position of the center of mass of the parts
+     * @param rotation the rotation of the grid in the world
+     */
+    private StructureRigidBody(@NotNull MinecraftPhysics mcPhysics, @NotNull List<Part> parts, float massPerBlock,
+                               @NotNull Vector3f location, @NotNull Quaternion rotation) {
+        super(mcPhysics, new PhysicsRigidBody(shapeOf(parts, centerOf(parts)), massPerBlock * parts.size()), sizeOf(parts));
+
+        this.parts = new ArrayList<>(parts);
+        this.massPerBlock = massPerBlock;
+        this.center = centerOf(parts);
+
+        var rigidBody = (PhysicsRigidBody) getCollisionObject();
+        rigidBody.setAngularDamping(0.1f);
+        rigidBody.setLinearDamping(0.3f);
+        rigidBody.setPhysicsLocation(location);
+        rigidBody.setPhysicsRotation(rotation);
+    }
+
+    /**
+     * Returns the parts of a solid box of blocks, with its lowest corner at the given block.
+     */
+    public static @NotNull List<Part> box(int x, int y, int z, int width, int height, int depth, @NotNull Block block) {
+        final List<Part> parts = new ArrayList<>(width * height * depth);
+        for (int dy = 0; dy < height; dy++) {
+            for (int dx = 0; dx < width; dx++) {
+                for (int dz = 0; dz < depth; dz++) {
+                    parts.add(new Part(x + dx, y + dy, z + dz, block));
+                }
+            }
+        }
+        return parts;
+    }
+
+    private static @NotNull Vector3f centerOf(@NotNull List<Part> parts) {
+        final Vector3f sum = new Vector3f();
+        for (Part part : parts) sum.addLocal(part.x + 0.5f, part.y + 0.5f, part.z + 0.5f);
+        return sum.divideLocal(parts.size());
+    }
+
+    private static @NotNull CompoundCollisionShape shapeOf(@NotNull List<Part> parts, @NotNull Vector3f center) {
+        // Every child shares one box
+        final BoxCollisionShape box = new BoxCollisionShape(0.5f);
+        final CompoundCollisionShape compound = new CompoundCollisionShape(parts.size());
+        for (Part part : parts) {
+            compound.addChildShape(box, part.x + 0.5f - center.x, part.y + 0.5f - center.y, part.z + 0.5f - center.z);
+        }
+        return compound;
+    }
+
+    private static @NotNull Vec sizeOf(@NotNull List<Part> parts) {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (Part part : parts) {
+            minX = Math.min(minX, part.x);
+            minY = Math.min(minY, part.y);
+            minZ = Math.min(minZ, part.z);
+            maxX = Math.max(maxX, part.x);
+            maxY = Math.max(maxY, part.y);
+            maxZ = Math.max(maxZ, part.z);
+        }
+        // Half extents, like the other objects
+        return new Vec(maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1).div(2);
+    }
+
+    @Override
+    public @Nullable Entity createEntity() {
+        // Every part has its own entity instead
+        return null;
+    }
+
+    @Override
+    public Entity setInstance() {
+        final PhysicsRigidBody body = (PhysicsRigidBody) getCollisionObject();
+        body.getPhysicsLocation(location);
+        body.getPhysicsRotation(rotation);
+
+        for (Part part : parts) {
+            Entity entity = new Entity(EntityType.ITEM_DISPLAY);
+            entity.setNoGravity(true);
+            entity.updateViewableRule(MinecraftPhysics.SPECTATOR_RULE);
+
+            final Material material = part.block.registry().material();
+            entity.editEntityMeta(ItemDisplayMeta.class, meta -> {
+                meta.setWidth(2);
+                meta.setHeight(2);
+                meta.setItemStack(ItemStack.of(material != null ? material : Material.STONE));
+                meta.setLeftRotation(toFloats(rotation));
+            });
+
+            entity.setInstance(getMcPhysics().getInstance(), toPos(partLocation(part)));
+            entities.add(entity);
+        }
+        return null;
+    }
+
+    @Override
+    public @NotNull List<Entity> getEntities() {
+        return Collections.unmodifiableList(entities);
+    }
+
+    /**
+     * Returns the world position of a part, using the transform in {@link #location} and {@link #rotation}.
+     */
+    private @NotNull Vector3f partLocation(@NotNull Part part) {
+        offset.set(part.x + 0.5f - center.x, part.y + 0.5f - center.y, part.z + 0.5f - center.z);
+        return rotation.multLocal(offset).addLocal(location);
+    }
+
+    @Override
+    public void update() {
+        super.update();
+
+        final PhysicsRigidBody body = (PhysicsRigidBody) getCollisionObject();
+        if (!body.isActive()) return;
+
+        body.getPhysicsLocation(location);
+        body.getPhysicsRotation(rotation);
+        final float[] leftRotation = toFloats(rotation);
+        final int interpolation = getMcPhysics().getInterpolationTicks();
+
+        for (int i = 0; i < parts.size(); i++) {
+            final Entity entity = entities.get(i);
+            if (!entity.isActive()) continue;
+
+            final Vector3f partLocation = partLocation(parts.get(i));
+            entity.editEntityMeta(AbstractDisplayMeta.class, meta -> {
+                meta.setTransformationInterpolationDuration(interpolation);
+                meta.setPosRotInterpolationDuration(interpolation);
+                meta.setTransformationInterpolationStartDelta(0);
+
+                entity.teleport(toPos(partLocation));
+                meta.setLeftRotation(leftRotation);
+            });
+        }
+    }
+
+    /**
+     * Breaks the parts around an impact off as separate blocks, if the impulse is strong enough. The stronger the
+     * impact, the more parts break off. Whatever is no longer connected to the biggest remaining piece is split into
+     * structures of its own.
+     *
+     * @param point   where the impact happened, in world space
+     * @param impulse the impulse of the impact
+     * @return whether anything broke off
+     */
+    public boolean fracture(@NotNull Vector3f point, float impulse) {
+        if (destroyed || impulse < FRACTURE_IMPULSE) return false;
+
+        final PhysicsRigidBody body = (PhysicsRigidBody) getCollisionObject();
+        body.getPhysicsLocation(location);
+        body.getPhysicsRotation(rotation);
+
+        // The impact point on the grid
+        final Vector3f local = rotation.inverse().multLocal(point.subtract(location)).addLocal(center);
+        final Fracture fracture = split(parts, local, impulse);
+
+        final Vector3f velocity = body.getLinearVelocity(null);
+        final Vector3f angularVelocity = body.getAngularVelocity(null);
+
+        for (Part part : fracture.broken()) {
+            final Vector3f partLocation = partLocation(part).clone();
+
+            BlockRigidBody block = new BlockRigidBody(getMcPhysics(), partLocation, new Vec(0.5, 0.5, 0.5),
+                    massPerBlock, true, part.block);
+            final PhysicsRigidBody blockBody = (PhysicsRigidBody) block.getCollisionObject();
+            blockBody.setPhysicsRotation(rotation);
+
+            // Keep the motion of the structure at that point, plus a push away from the impact
+            final Vector3f push = partLocation.subtract(point).normalizeLocal().multLocal(FRAGMENT_PUSH);
+            blockBody.setLinearVelocity(velocity.add(angularVelocity.cross(partLocation.subtract(location))).addLocal(push));
+            blockBody.setAngularVelocity(angularVelocity);
+            block.setInstance();
+        }
+
+        for (List<Part> piece : fracture.pieces()) {
+            final Vector3f pieceCenter = centerOf(piece);
+            final Vector3f pieceLocation = rotation.mult(pieceCenter.subtract(center)).addLocal(location);
+
+            StructureRigidBody structure = new StructureRigidBody(getMcPhysics(), piece, massPerBlock, pieceLocation, rotation);
+            final PhysicsRigidBody structureBody = (PhysicsRigidBody) structure.getCollisionObject();
+            structureBody.setLinearVelocity(velocity.add(angularVelocity.cross(pieceLocation.subtract(location))));
+            structureBody.setAngularVelocity(angularVelocity);
+            structure.setInstance();
+        }
+
+        if (fracture.kept().isEmpty()) {
+            destroy();
+            return true;
+        }
+
+        reshape(fracture.kept());
+        return true;
+    }
+
+    /**
+     * Works out how parts break around an impact. The parts within a radius that grows with the impulse break off,
+     * and always at least the closest one. The biggest connected piece of what remains is kept.
+     *
+     * @param impact the impact point on the grid
+     */
+    static @NotNull Fracture split(@NotNull List<Part> parts, @NotNull Vector3f impact, float impulse) {
+        final float radius = Math.min(MAX_FRACTURE_RADIUS, impulse / FRACTURE_IMPULSE);
+
+        final List<Part> broken = new ArrayList<>();
+        final List<Part> remaining = new ArrayList<>();
+        for (Part part : parts) {
+            if (distanceSquared(part, impact) <= radius * radius) broken.add(part);
+            else remaining.add(part);
+        }
+
+        // Always break at least the part closest to the impact
+        if (broken.isEmpty() && !parts.isEmpty()) {
+            final Part closest = parts.stream()
+                    .min(Comparator.comparingDouble(part -> distanceSquared(part, impact)))
+                    .orElseThrow();
+            broken.add(closest);
+            remaining.remove(closest);
+        }
+
+        final List<List<Part>> pieces = connectedPieces(remaining);
+        pieces.sort(Comparator.comparingInt(List::size));
+        final List<Part> kept = pieces.isEmpty() ? List.of() : pieces.removeLast();
+
+        return new Fracture(broken, pieces, kept);
+    }
+
+    private static float distanceSquared(@NotNull Part part, @NotNull Vector3f point) {
+        final float dx = part.x + 0.5f - point.x, dy = part.y + 0.5f - point.y, dz = part.z + 0.5f - point.z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Rebuilds the shape around the remaining parts. The body moves to their center of mass so that it keeps
+     * rotating around the right point.
+     */
+    private void reshape(@NotNull List<Part> kept) {
+        final PhysicsRigidBody body = (PhysicsRigidBody) getCollisionObject();
+        final Vector3f keptCenter = centerOf(kept);
+
+        body.setPhysicsLocation(rotation.mult(keptCenter.subtract(center)).addLocal(location));
+        getMcPhysics().getResources().setShape(body, shapeOf(kept, keptCenter));
+        body.setMass(massPerBlock * kept.size());
+
+        for (int i = parts.size() - 1; i >= 0; i--) {
+            if (kept.contains(parts.get(i))) continue;
+
+            parts.remove(i);
+            entities.remove(i).remove();
+        }
+        center = keptCenter;
+    }
+
+    /**
+     * Splits parts into groups that touch each other by a face.
+     */
+    private static @NotNull List<List<Part>> connectedPieces(@NotNull List<Part> parts) {
+        final Long2ObjectMap<Part> byPosition = new Long2ObjectOpenHashMap<>(parts.size());
+        for (Part part : parts) byPosition.put(key(part.x, part.y, part.z), part);
+
+        final List<List<Part>> pieces = new ArrayList<>();
+        final Deque<Part> queue = new ArrayDeque<>();
+        for (Part start : parts) {
+            if (byPosition.remove(key(start.x, start.y, start.z)) == null) continue;
+
+            final List<Part> piece = new ArrayList<>();
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                final Part part = queue.poll();
+                piece.add(part);
+
+                visit(byPosition, queue, part.x + 1, part.y, part.z);
+                visit(byPosition, queue, part.x - 1, part.y, part.z);
+                visit(byPosition, queue, part.x, part.y + 1, part.z);
+                visit(byPosition, queue, part.x, part.y - 1, part.z);
+                visit(byPosition, queue, part.x, part.y, part.z + 1);
+                visit(byPosition, queue, part.x, part.y, part.z - 1);
+            }
+            pieces.add(piece);
+        }
+        return pieces;
+    }
+
+    private static void visit(@NotNull Long2ObjectMap<Part> remaining, @NotNull Deque<Part> queue, int x, int y, int z) {
+        final Part neighbour = remaining.remove(key(x, y, z));
+        if (neighbour != null) queue.add(neighbour);
+    }
+
+    private static long key(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    @Override
+    public void destroy() {
+        if (destroyed) return;
+        destroyed = true;
+
+        super.destroy();
+        for (Entity entity : entities) entity.remove();
+        entities.clear();
+    }
+
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
+    public int getPartCount() {
+        return parts.size();
+    }
+}
@@ -0,0 +1,91 @@
+package net.minestom.jam.profiling;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.minestom.jam.Game;
+import net.minestom.server.command.CommandSender;
+import net.minestom.server.command.ConsoleSender;
+import net.minestom.server.command.builder.Command;
+import net.minestom.server.command.builder.condition.CommandCondition;
+import net.minestom.server.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * {@code /perf}: shows the rolling p50/p99 of every measured phase, per game and for the queues.
+ * <br>
+ * Only the console and operators can use it. Minestom has no operators of its own, so they're listed by UUID in
+ * {@code -Dtower.operators=<uuid,uuid...>}.
+ */
+public final class PerfCommand extends Command {
+
+    private static final Set<UUID> OPERATORS = parseOperators(System.getProperty("tower.operators", ""));
+
+    private static final CommandCondition OPERATORS_ONLY = (sender, commandString) -> {
+        if (sender instanceof ConsoleSender) return true;
+        if (sender instanceof Player player && OPERATORS.contains(player.getUuid())) return true;
+
+        if (commandString != null) sender.sendMessage(NOT_AN_OPERATOR);
+        return false;
+    };
+
+    public PerfCommand() {
+        super("perf");
+
+        setCondition(OPERATORS_ONLY);
+
+        setDefaultExecutor((sender, context) -> {
+            sender.sendMessage(HEADER);
+
+            for (Game game : Game.GAMES) {
+                sendPhases(sender, Component.text("Game #" + game.getId() + " (" + game.getPhysics().getObjects().size() + " bodies)"),
+                        game.getProfiler());
+            }
+            sendPhases(sender, Component.text("Global"), TickProfiler.GLOBAL);
+        });
+    }
+
+    private static void sendPhases(@NotNull CommandSender sender, @NotNull Component title, @NotNull TickProfiler profiler) {
+        TextComponent.Builder builder = Component.text().append(title.color(NamedTextColor.WHITE));
+
+        for (TickPhase phase : TickPhase.values()) {
+            if (profiler.sampleCount(phase) == 0) continue;
+
+            builder.appendNewline()
+                    .append(Component.text("  " + phase.name().toLowerCase() + ": ", NamedTextColor.GRAY))
+                    .append(Component.text(millis(profiler.percentile(phase, 50)), NamedTextColor.GREEN))
+                    .append(Component.text(" / ", NamedTextColor.GRAY))
+                    .append(Component.text(millis(profiler.percentile(phase, 99)), NamedTextColor.YELLOW))
+                    .append(Component.text(" ms", NamedTextColor.GRAY));
+        }
+
+        sender.sendMessage(builder.build());
+    }
+
+    private static @NotNull Set<UUID> parseOperators(@NotNull String operators) {
+        final Set<UUID> parsed = new HashSet<>();
+        for (String operator : operators.split(",")) {
+            if (!operator.isBlank()) parsed.add(UUID.fromString(operator.strip()));
+        }
+        return Set.copyOf(parsed);
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+
+    private static final Component HEADER = Component.textOfChildren(
+            Component.text("[!]", NamedTextColor.YELLOW, TextDecoration.BOLD),
+            Component.text(" Tick phases (p50 / p99)", NamedTextColor.GRAY)
+    );
+
+    private static final Component NOT_AN_OPERATOR = Component.textOfChildren(
+            Component.text("[!]", NamedTextColor.RED, TextDecoration.BOLD),
+            Component.text(" Only operators can see performance stats!", NamedTextColor.RED)
+    );
+}
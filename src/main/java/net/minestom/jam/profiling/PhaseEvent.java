@@ -0,0 +1,26 @@
+package net.minestom.jam.profiling;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for one measured {@link TickPhase}. Only allocated and committed while a recording has it enabled.
+ */
+@Name("net.minestom.jam.Phase")
+@Label("Tick Phase")
+@Category({"Tower", "Tick"})
+@StackTrace(false)
+class PhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Game ID")
+    int gameId;
+
+    @Label("Body Count")
+    int bodyCount;
+
+    @Label("Phase Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long phaseDuration;
+}
@@ -0,0 +1,31 @@
+package net.minestom.jam.profiling;
+
+/**
+ * The parts of a tick that are measured separately by a {@link TickProfiler}.
+ */
+public enum TickPhase {
+    /**
+     * The whole of {@code Game#update}.
+     */
+    GAME_UPDATE,
+    /**
+     * {@code PhysicsSpace#update}, i.e. the native simulation step.
+     */
+    PHYSICS_STEP,
+    /**
+     * Copying body transforms to their display entities.
+     */
+    OBJECT_SYNC,
+    /**
+     * Generating and spawning shulker hitboxes.
+     */
+    SHULKER_GENERATION,
+    /**
+     * One step of a queue's countdown, including starting the game.
+     */
+    QUEUE_COUNTDOWN,
+    /**
+     * The {@code Game} constructor.
+     */
+    GAME_CREATION
+}
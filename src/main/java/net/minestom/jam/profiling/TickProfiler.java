@@ -0,0 +1,92 @@
+package net.minestom.jam.profiling;
+
+import jdk.jfr.EventType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Nanosecond timings of each {@link TickPhase}, kept in a rolling window and mirrored to JFR as {@link PhaseEvent}s.
+ * <br>
+ * Usage is a pair of calls around the measured code: {@code long start = profiler.start(); ...;
+ * profiler.end(TickPhase.PHYSICS_STEP, start, bodies);}. Recording never allocates unless JFR is recording the event.
+ */
+public final class TickProfiler {
+
+    /**
+     * Phases that don't belong to a single game, such as queue countdowns.
+     */
+    public static final TickProfiler GLOBAL = new TickProfiler(-1);
+
+    /**
+     * Samples kept per phase; 1024 ticks is a little over 17 seconds at 60 TPS.
+     */
+    private static final int WINDOW = 1024;
+
+    private static final EventType EVENT_TYPE = EventType.getEventType(PhaseEvent.class);
+
+    private final int gameId;
+    private final long[][] samples = new long[TickPhase.values().length][WINDOW];
+    private final int[] counts = new int[TickPhase.values().length];
+
+    public TickProfiler(int gameId) {
+        this.gameId = gameId;
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a phase that began at {@code start} (from {@link #start()}).
+     *
+     * @return the duration, in nanoseconds
+     */
+    public long end(@NotNull TickPhase phase, long start, int bodyCount) {
+        final long duration = System.nanoTime() - start;
+
+        final int index = phase.ordinal();
+        samples[index][counts[index]++ & (WINDOW - 1)] = duration;
+
+        if (EVENT_TYPE.isEnabled()) {
+            PhaseEvent event = new PhaseEvent();
+            if (event.shouldCommit()) {
+                event.phase = phase.name();
+                event.gameId = gameId;
+                event.bodyCount = bodyCount;
+                event.phaseDuration = duration;
+                event.commit();
+            }
+        }
+        return duration;
+    }
+
+    /**
+     * Returns the given percentile (0-100) of the phase's recent durations, in nanoseconds, or 0 without samples.
+     */
+    public long percentile(@NotNull TickPhase phase, double percentile) {
+        final int index = phase.ordinal();
+        final int size = Math.min(counts[index], WINDOW);
+        if (size == 0) return 0;
+
+        final long[] sorted = Arrays.copyOf(samples[index], size);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.max(0, Math.ceil(percentile / 100 * size) - 1)];
+    }
+
+    /**
+     * Returns the most recent duration of the phase, in nanoseconds.
+     */
+    public long last(@NotNull TickPhase phase) {
+        final int index = phase.ordinal();
+        return counts[index] == 0 ? 0 : samples[index][(counts[index] - 1) & (WINDOW - 1)];
+    }
+
+    public int sampleCount(@NotNull TickPhase phase) {
+        return Math.min(counts[phase.ordinal()], WINDOW);
+    }
+
+    public int getGameId() {
+        return gameId;
+    }
+}
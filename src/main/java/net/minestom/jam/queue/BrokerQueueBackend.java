@@ -0,0 +1,218 @@
+package net.minestom.jam.queue;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Places matches through a {@link QueueBroker}, so they go to the least-loaded game node behind the proxy.
+ * <br>
+ * Nothing here blocks the caller: lines are written by a background thread, and answers are read by another. If the
+ * broker doesn't answer within {@link #PLACE_TIMEOUT_SECONDS}, or isn't connected, matches are played on this node
+ * instead.
+ * <br>
+ * The connection is made in the background, so a broker that is down at startup doesn't stop the server. When it is
+ * lost or can't be made, it is retried with an exponential backoff, from {@link #MIN_RETRY_MS} up to
+ * {@link #MAX_RETRY_MS}.
+ */
+public final class BrokerQueueBackend implements QueueBackend {
+
+    private static final int PLACE_TIMEOUT_SECONDS = 5;
+    private static final int CONNECT_TIMEOUT_MS = 2_000;
+    private static final long MIN_RETRY_MS = 500;
+    private static final long MAX_RETRY_MS = 30_000;
+
+    private final InetSocketAddress broker;
+    private final String nodeName;
+    private final boolean hostsGames;
+    private final BlockingQueue<String> outgoing = new LinkedBlockingQueue<>();
+    private final Map<Integer, CompletableFuture<@Nullable String>> placing = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Thread connection;
+
+    private volatile @Nullable Socket socket;
+    private volatile boolean closed;
+
+    private volatile Consumer<Set<UUID>> remoteMatches = players -> {
+    };
+
+    /**
+     * @param nodeName   the name of this server in the proxy's configuration
+     * @param hostsGames whether matches can be sent to this node; false for lobby-only nodes
+     */
+    public BrokerQueueBackend(@NotNull InetSocketAddress broker, @NotNull String nodeName, boolean hostsGames) {
+        this.broker = broker;
+        this.nodeName = nodeName;
+        this.hostsGames = hostsGames;
+        this.connection = Thread.ofVirtual().name("queue-backend").start(this::connect);
+    }
+
+    /**
+     * Keeps a connection to the broker open until the backend is closed.
+     */
+    private void connect() {
+        long retry = MIN_RETRY_MS;
+        boolean reported = false;
+
+        while (!closed) {
+            try (Socket socket = new Socket()) {
+                socket.connect(broker, CONNECT_TIMEOUT_MS);
+                System.out.println("Connected to the queue broker at " + broker);
+
+                // Anything queued while disconnected is stale, and the broker needs to know us again
+                outgoing.clear();
+                outgoing.add("HELLO " + nodeName + " " + hostsGames);
+                this.socket = socket;
+                reported = false;
+                retry = MIN_RETRY_MS;
+
+                serve(socket);
+            } catch (IOException e) {
+                // Couldn't connect, or lost the broker
+            } finally {
+                this.socket = null;
+
+                // Play whatever was waiting for an answer here
+                placing.values().forEach(future -> future.complete(null));
+                placing.clear();
+            }
+
+            if (closed) return;
+            if (!reported) {
+                System.out.println("Can't reach the queue broker at " + broker + ", playing matches here until it's back");
+                reported = true;
+            }
+
+            try {
+                Thread.sleep(retry);
+            } catch (InterruptedException e) {
+                return;
+            }
+            retry = Math.min(MAX_RETRY_MS, retry * 2);
+        }
+    }
+
+    /**
+     * Writes queued lines and reads answers until the connection is lost.
+     */
+    private void serve(@NotNull Socket socket) throws IOException {
+        final PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+        final Thread writer = Thread.ofVirtual().name("queue-backend-writer").start(() -> {
+            try {
+                while (!socket.isClosed() && !out.checkError()) out.println(outgoing.take());
+            } catch (InterruptedException ignored) {
+            }
+        });
+
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                try {
+                    handle(line);
+                } catch (RuntimeException e) {
+                    // A malformed line shouldn't take the connection down with it
+                    System.err.println("Skipped a bad line from the queue broker: " + line);
+                }
+            }
+        } finally {
+            writer.interrupt();
+        }
+    }
+
+    private void handle(@NotNull String line) {
+        final String[] parts = line.split(" ");
+
+        switch (parts[0]) {
+            case "PLACED" -> {
+                final CompletableFuture<@Nullable String> future = placing.remove(Integer.parseInt(parts[1]));
+                if (future == null) break;
+
+                final String server = parts[2];
+                future.complete(server.equals("-") || server.equals(nodeName) ? null : server);
+            }
+            case "MATCH" -> remoteMatches.accept(decode(parts[1]));
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable String> place(@NotNull Set<UUID> players) {
+        if (!isConnected()) return CompletableFuture.completedFuture(null);
+
+        final int id = nextId.incrementAndGet();
+        final CompletableFuture<@Nullable String> future = new CompletableFuture<>();
+        placing.put(id, future);
+        outgoing.add("PLACE " + id + " " + encode(players));
+
+        return future.completeOnTimeout(null, PLACE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .whenComplete((server, throwable) -> placing.remove(id));
+    }
+
+    @Override
+    public void onRemoteMatch(@NotNull Consumer<Set<UUID>> listener) {
+        this.remoteMatches = listener;
+    }
+
+    @Override
+    public void reportLoad(int games, int players, boolean accepting) {
+        if (isConnected()) outgoing.add("LOAD " + games + " " + players + " " + accepting);
+    }
+
+    private static @NotNull String encode(@NotNull Set<UUID> players) {
+        final StringBuilder builder = new StringBuilder();
+        for (UUID player : players) {
+            if (!builder.isEmpty()) builder.append(',');
+            builder.append(player);
+        }
+        return builder.toString();
+    }
+
+    private static @NotNull Set<UUID> decode(@NotNull String players) {
+        final Set<UUID> decoded = new HashSet<>();
+        for (String player : players.split(",")) {
+            decoded.add(UUID.fromString(player));
+        }
+        return decoded;
+    }
+
+    /**
+     * Returns whether the broker is currently connected.
+     */
+    public boolean isConnected() {
+        return socket != null;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        connection.interrupt();
+
+        final Socket socket = this.socket;
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
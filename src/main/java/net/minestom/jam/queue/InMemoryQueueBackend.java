@@ -0,0 +1,33 @@
+package net.minestom.jam.queue;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Plays every match on this node. The default, for a single server.
+ */
+public final class InMemoryQueueBackend implements QueueBackend {
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable String> place(@NotNull Set<UUID> players) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void onRemoteMatch(@NotNull Consumer<Set<UUID>> listener) {
+        // No other node can send one
+    }
+
+    @Override
+    public void reportLoad(int games, int players, boolean accepting) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,41 @@
+package net.minestom.jam.queue;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Decides where the matches of full queues are played.
+ * <br>
+ * {@link net.minestom.jam.Queue.Manager} still forms queues, parties and invites on each node; once a queue is full,
+ * it asks the backend for a server. {@link InMemoryQueueBackend} always answers this node, while
+ * {@link BrokerQueueBackend} asks a {@link QueueBroker} shared by every node, which picks the least-loaded game node.
+ */
+public interface QueueBackend extends AutoCloseable {
+
+    /**
+     * Finds a server for a match.
+     *
+     * @return the name of the server (as known to the proxy) to send the players to, or null to play it on this node
+     */
+    @NotNull CompletableFuture<@Nullable String> place(@NotNull Set<UUID> players);
+
+    /**
+     * Sets what to do when another node sends a match here. Its players are on their way, and may not be online yet.
+     */
+    void onRemoteMatch(@NotNull Consumer<Set<UUID>> listener);
+
+    /**
+     * Reports how busy this node is, used to pick the least-loaded one.
+     *
+     * @param accepting false when this node can't take more games right now
+     */
+    void reportLoad(int games, int players, boolean accepting);
+
+    @Override
+    void close();
+}
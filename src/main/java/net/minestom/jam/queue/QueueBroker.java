@@ -0,0 +1,198 @@
+package net.minestom.jam.queue;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns matches to the least-loaded game node. Every node connects to it through a {@link BrokerQueueBackend}.
+ * <br>
+ * The protocol is line based. A node introduces itself with {@code HELLO <name> <hostsGames>} and reports its load
+ * with {@code LOAD <games> <players> <accepting>} every second; nodes that aren't accepting are skipped.
+ * {@code PLACE <id> <uuid,uuid...>} asks for a server; the broker answers {@code PLACED <id> <name>}, or
+ * {@code PLACED <id> -} when there is no game node, and sends the chosen node {@code MATCH <uuid,uuid...>} so it can
+ * start the game once the players arrive.
+ * <br>
+ * Run it on its own with {@code java -cp tower.jar net.minestom.jam.queue.QueueBroker [port]}, or inside a node with
+ * {@code -Dtower.embeddedBroker=true}, which is enough for a single machine or for testing on the loopback.
+ */
+public final class QueueBroker implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 25590;
+
+    private static final class Node {
+        private final String name;
+        private final boolean hostsGames;
+        private final PrintWriter out;
+
+        private volatile int games;
+        private volatile int players;
+        private volatile boolean accepting = true;
+        /**
+         * Matches sent since the last report, which the reported load doesn't include yet.
+         */
+        private volatile int pending;
+
+        private Node(@NotNull String name, boolean hostsGames, @NotNull PrintWriter out) {
+            this.name = name;
+            this.hostsGames = hostsGames;
+            this.out = out;
+        }
+
+        private synchronized void send(@NotNull String line) {
+            out.println(line);
+        }
+    }
+
+    private final ServerSocket socket;
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+
+    public QueueBroker(@NotNull InetSocketAddress address) throws IOException {
+        this.socket = new ServerSocket();
+        socket.bind(address);
+    }
+
+    public static void main(String[] args) throws IOException {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        new QueueBroker(new InetSocketAddress(port)).start();
+        System.out.println("Queue broker listening on port " + port);
+    }
+
+    /**
+     * Accepts nodes in the background.
+     */
+    public void start() {
+        Thread.ofPlatform().name("queue-broker").start(() -> {
+            while (!socket.isClosed()) {
+                try {
+                    final Socket connection = socket.accept();
+                    Thread.ofVirtual().start(() -> handle(connection));
+                } catch (IOException e) {
+                    if (!socket.isClosed()) e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    private void handle(@NotNull Socket connection) {
+        Node node = null;
+        try (connection;
+             BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            final PrintWriter out = new PrintWriter(connection.getOutputStream(), true, StandardCharsets.UTF_8);
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                try {
+                    node = handle(node, line, out);
+                } catch (RuntimeException e) {
+                    // A malformed line shouldn't drop the node
+                    System.err.println("Skipped a bad line from " + (node != null ? node.name : "a new node") + ": " + line);
+                }
+            }
+        } catch (IOException ignored) {
+            // The node went away
+        } finally {
+            if (node != null) nodes.remove(node.name, node);
+        }
+    }
+
+    /**
+     * Handles one line from a node.
+     *
+     * @return the node, which is only known once it said hello
+     */
+    private @Nullable Node handle(@Nullable Node node, @NotNull String line, @NotNull PrintWriter out) {
+        final String[] parts = line.split(" ");
+
+        switch (parts[0]) {
+            case "HELLO" -> {
+                final Node hello = new Node(parts[1], Boolean.parseBoolean(parts[2]), out);
+                nodes.put(hello.name, hello);
+                return hello;
+            }
+            case "LOAD" -> {
+                if (node == null) break;
+                final int games = Integer.parseInt(parts[1]);
+                final int players = Integer.parseInt(parts[2]);
+                node.games = games;
+                node.players = players;
+                node.accepting = Boolean.parseBoolean(parts[3]);
+                node.pending = 0;
+            }
+            case "PLACE" -> {
+                if (node == null) break;
+                place(node, parts[1], parts[2]);
+            }
+            default -> {
+            }
+        }
+        return node;
+    }
+
+    private synchronized void place(@NotNull Node requester, @NotNull String id, @NotNull String players) {
+        final Node target = leastLoaded();
+        if (target == null) {
+            requester.send("PLACED " + id + " -");
+            return;
+        }
+
+        target.pending++;
+        if (target != requester) target.send("MATCH " + players);
+        requester.send("PLACED " + id + " " + target.name);
+    }
+
+    private @Nullable Node leastLoaded() {
+        Node best = null;
+        for (Node node : nodes.values()) {
+            if (!node.hostsGames || !node.accepting) continue;
+
+            if (best == null || load(node) < load(best)
+                    || (load(node) == load(best) && node.players < best.players)) {
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    private static int load(@NotNull Node node) {
+        return node.games + node.pending;
+    }
+
+    /**
+     * Returns the load of a node as the broker sees it, or -1 if no node by that name is connected.
+     */
+    int load(@NotNull String name) {
+        final Node node = nodes.get(name);
+        return node != null ? load(node) : -1;
+    }
+
+    /**
+     * Returns whether a node is connected and accepting matches.
+     */
+    boolean isAccepting(@NotNull String name) {
+        final Node node = nodes.get(name);
+        return node != null && node.accepting;
+    }
+
+    public @NotNull InetSocketAddress getAddress() {
+        return (InetSocketAddress) socket.getLocalSocketAddress();
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package net.minestom.jam.replay;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The replay file layout, shared by {@link ReplayRecorder} and {@link ReplayReader}.
+ * <br>
+ * A file is a header ({@link #MAGIC}, {@link #VERSION}, start time in epoch milliseconds) followed by frames. A frame
+ * is {@link #FRAME}, the number of ticks since the previous frame, then entries until a zero key. Each entry key is
+ * {@code id << 2 | kind}:
+ * <ul>
+ *     <li>{@link #SPAWN}: block state ID, half extents as floats, then an absolute transform</li>
+ *     <li>{@link #TRANSFORM}: a transform, delta-encoded against the object's previous one</li>
+ *     <li>{@link #DESTROY}: nothing else</li>
+ * </ul>
+ * A transform is seven zigzag varints: the position in 1/{@link #POSITION_SCALE} blocks and the rotation quaternion
+ * (x, y, z, w with w >= 0) in 1/{@link #ROTATION_SCALE}. A file ends with {@link #END}, or with zeroes if the server
+ * stopped before the recorder was closed.
+ */
+final class ReplayFormat {
+
+    static final int MAGIC = 0x5452504C; // TRPL
+    static final int VERSION = 1;
+
+    static final byte END = 0;
+    static final byte FRAME = 1;
+
+    static final int TRANSFORM = 1;
+    static final int SPAWN = 2;
+    static final int DESTROY = 3;
+
+    static final float POSITION_SCALE = 512f;
+    static final float ROTATION_SCALE = 32767f;
+
+    /**
+     * Ints per object in a transform state array.
+     */
+    static final int STRIDE = 7;
+
+    private ReplayFormat() {
+    }
+
+    static void putVarInt(@NotNull ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static int getVarInt(@NotNull ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalStateException("VarInt too big");
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
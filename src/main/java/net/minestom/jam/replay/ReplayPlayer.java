@@ -0,0 +1,99 @@
+package net.minestom.jam.replay;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.coordinate.Pos;
+import net.minestom.server.coordinate.Vec;
+import net.minestom.server.entity.Entity;
+import net.minestom.server.entity.EntityType;
+import net.minestom.server.entity.metadata.display.AbstractDisplayMeta;
+import net.minestom.server.entity.metadata.display.ItemDisplayMeta;
+import net.minestom.server.instance.Instance;
+import net.minestom.server.instance.block.Block;
+import net.minestom.server.item.ItemStack;
+import net.minestom.server.item.Material;
+import net.minestom.server.timer.Task;
+import net.minestom.server.timer.TaskSchedule;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Plays a replay back into an instance with display entities, one recorded tick per server tick.
+ */
+public final class ReplayPlayer implements ReplayReader.Listener {
+
+    private final ReplayReader reader;
+    private final Instance instance;
+    private final Int2ObjectMap<Entity> entities = new Int2ObjectOpenHashMap<>();
+    private int wait = 0;
+    private Task task;
+
+    public ReplayPlayer(@NotNull ReplayReader reader, @NotNull Instance instance) {
+        this.reader = reader;
+        this.instance = instance;
+    }
+
+    public void start() {
+        task = MinecraftServer.getSchedulerManager().buildTask(this::tick)
+                .repeat(TaskSchedule.nextTick())
+                .schedule();
+    }
+
+    private void tick() {
+        if (--wait > 0) return;
+
+        final int ticks = reader.nextFrame(this);
+        if (ticks < 0) {
+            stop();
+            return;
+        }
+        wait = ticks;
+    }
+
+    public void stop() {
+        if (task != null) task.cancel();
+        for (Entity entity : entities.values()) entity.remove();
+        entities.clear();
+    }
+
+    @Override
+    public void onSpawn(int id, @NotNull Block block, float sizeX, float sizeY, float sizeZ,
+                        float x, float y, float z, float qx, float qy, float qz, float qw) {
+        final Material material = block.registry().material();
+
+        Entity entity = new Entity(EntityType.ITEM_DISPLAY);
+        entity.setNoGravity(true);
+        entity.editEntityMeta(ItemDisplayMeta.class, meta -> {
+            meta.setWidth(2);
+            meta.setHeight(2);
+            meta.setItemStack(ItemStack.of(material != null ? material : Material.STONE));
+            meta.setScale(new Vec(sizeX, sizeY, sizeZ).mul(2));
+            meta.setLeftRotation(new float[]{qx, qy, qz, qw});
+        });
+        entity.setInstance(instance, new Pos(x, y, z));
+
+        final Entity previous = entities.put(id, entity);
+        if (previous != null) previous.remove();
+    }
+
+    @Override
+    public void onTransform(int id, float x, float y, float z, float qx, float qy, float qz, float qw) {
+        final Entity entity = entities.get(id);
+        if (entity == null) return;
+
+        entity.editEntityMeta(AbstractDisplayMeta.class, meta -> {
+            meta.setTransformationInterpolationDuration(1);
+            meta.setPosRotInterpolationDuration(1);
+            meta.setTransformationInterpolationStartDelta(0);
+
+            entity.teleport(new Pos(x, y, z));
+            meta.setLeftRotation(new float[]{qx, qy, qz, qw});
+        });
+    }
+
+    @Override
+    public void onDestroy(int id) {
+        final Entity entity = entities.remove(id);
+        if (entity != null) entity.remove();
+    }
+}
@@ -0,0 +1,119 @@
+package net.minestom.jam.replay;
+
+import net.minestom.server.instance.block.Block;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static net.minestom.jam.replay.ReplayFormat.*;
+
+/**
+ * Decodes a replay written by {@link ReplayRecorder}, one frame at a time.
+ */
+public final class ReplayReader {
+
+    /**
+     * Receives decoded entries. Positions are in blocks, rotations are normalized quaternions.
+     */
+    public interface Listener {
+        void onSpawn(int id, @NotNull Block block, float sizeX, float sizeY, float sizeZ,
+                     float x, float y, float z, float qx, float qy, float qz, float qw);
+
+        void onTransform(int id, float x, float y, float z, float qx, float qy, float qz, float qw);
+
+        void onDestroy(int id);
+    }
+
+    private final ByteBuffer buffer;
+    private final long startTime;
+    private int[] states = new int[STRIDE * 256];
+    private boolean ended = false;
+
+    private ReplayReader(@NotNull ByteBuffer buffer) {
+        this.buffer = buffer;
+
+        if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) throw new IllegalArgumentException("Not a replay file");
+        final int version = buffer.getInt();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported replay version " + version);
+        this.startTime = buffer.getLong();
+    }
+
+    public static @NotNull ReplayReader open(@NotNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ReplayReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns when the recording started, in epoch milliseconds.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Decodes the next frame.
+     *
+     * @return the number of ticks since the previous frame, or -1 at the end of the replay
+     */
+    public int nextFrame(@NotNull Listener listener) {
+        if (ended || !buffer.hasRemaining()) return -1;
+
+        try {
+            if (buffer.get() != FRAME) {
+                ended = true;
+                return -1;
+            }
+
+            final int ticks = getVarInt(buffer);
+            int key;
+            while ((key = getVarInt(buffer)) != 0) {
+                final int id = key >>> 2;
+                switch (key & 3) {
+                    case SPAWN -> readSpawn(id, listener);
+                    case TRANSFORM -> readTransform(id, listener);
+                    case DESTROY -> listener.onDestroy(id);
+                    default -> throw new IllegalStateException("Unknown replay entry " + (key & 3));
+                }
+            }
+            return ticks;
+        } catch (BufferUnderflowException e) {
+            // The server stopped before the recorder was closed
+            ended = true;
+            return -1;
+        }
+    }
+
+    private void readSpawn(int id, @NotNull Listener listener) {
+        final Block block = Block.fromStateId(getVarInt(buffer));
+        final float sizeX = buffer.getFloat(), sizeY = buffer.getFloat(), sizeZ = buffer.getFloat();
+
+        if (states.length < (id + 1) * STRIDE) {
+            states = Arrays.copyOf(states, Math.max(states.length * 2, (id + 1) * STRIDE));
+        }
+
+        final int base = id * STRIDE;
+        for (int i = 0; i < STRIDE; i++) states[base + i] = unzigzag(getVarInt(buffer));
+
+        listener.onSpawn(id, block != null ? block : Block.STONE, sizeX, sizeY, sizeZ,
+                states[base] / POSITION_SCALE, states[base + 1] / POSITION_SCALE, states[base + 2] / POSITION_SCALE,
+                states[base + 3] / ROTATION_SCALE, states[base + 4] / ROTATION_SCALE,
+                states[base + 5] / ROTATION_SCALE, states[base + 6] / ROTATION_SCALE);
+    }
+
+    private void readTransform(int id, @NotNull Listener listener) {
+        final int base = id * STRIDE;
+        for (int i = 0; i < STRIDE; i++) states[base + i] += unzigzag(getVarInt(buffer));
+
+        listener.onTransform(id,
+                states[base] / POSITION_SCALE, states[base + 1] / POSITION_SCALE, states[base + 2] / POSITION_SCALE,
+                states[base + 3] / ROTATION_SCALE, states[base + 4] / ROTATION_SCALE,
+                states[base + 5] / ROTATION_SCALE, states[base + 6] / ROTATION_SCALE);
+    }
+}
@@ -0,0 +1,258 @@
+package net.minestom.jam.replay;
+
+import com.jme3.bullet.collision.PhysicsCollisionObject;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import net.minestom.jam.objects.BlockRigidBody;
+import net.minestom.jam.objects.MinecraftPhysicsObject;
+import net.minestom.server.instance.block.Block;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static net.minestom.jam.replay.ReplayFormat.*;
+
+/**
+ * Records the transforms of every physics object in a game, once per step.
+ * <br>
+ * Frames are encoded on the tick thread into a small direct buffer; only objects that are awake and actually moved
+ * (after quantization) are written, as deltas. Full buffers are handed to a single background thread that appends
+ * them to a memory-mapped file, so the tick thread never waits on I/O.
+ */
+public final class ReplayRecorder implements AutoCloseable {
+
+    /**
+     * Whether games record replays, enabled with {@code -Dtower.replays=true}. Off by default, since nothing cleans up
+     * the replay files.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("tower.replays");
+    public static final Path DIRECTORY = Path.of(System.getProperty("tower.replayDirectory", "replays"));
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("replay-writer").daemon().factory());
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_ENTRY_SIZE = 5 + 4 * 4 + STRIDE * 5;
+    private static final int FLUSH_EVERY_TICKS = 20;
+    private static final long MAP_CHUNK = 4L << 20;
+
+    private final FileChannel channel;
+    private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+    private ByteBuffer active = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // Writer thread only
+    private MappedByteBuffer mapped;
+    private long mappedStart = 0;
+    private long written = 0;
+
+    // Tick thread only
+    private int[] states = new int[STRIDE * 256];
+    private final BitSet known = new BitSet();
+    private final BitSet destroyed = new BitSet();
+    private final int[] quantized = new int[STRIDE];
+    private final Vector3f location = new Vector3f();
+    private final Quaternion rotation = new Quaternion();
+    private int tick = 0;
+    private int lastFrameTick = 0;
+    private boolean frameOpen = false;
+    private boolean closed = false;
+
+    public ReplayRecorder(@NotNull Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        active.putInt(MAGIC);
+        active.putInt(VERSION);
+        active.putLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a recorder for a game, in a new file of {@link #DIRECTORY}.
+     */
+    public static @NotNull ReplayRecorder forGame(int gameId) {
+        final Path file = DIRECTORY.resolve("game-" + gameId + "-" + System.currentTimeMillis() + ".replay");
+        try {
+            return new ReplayRecorder(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create replay " + file, e);
+        }
+    }
+
+    /**
+     * Records one step. Called after the physics step, with every object currently in the world.
+     */
+    public void onFrame(@NotNull List<MinecraftPhysicsObject> objects) {
+        if (closed) return;
+        tick++;
+
+        for (int id = destroyed.nextSetBit(0); id >= 0; id = destroyed.nextSetBit(id + 1)) {
+            writeKey(id, DESTROY);
+            known.clear(id);
+        }
+        destroyed.clear();
+
+        for (MinecraftPhysicsObject object : objects) {
+            final int id = object.getId();
+            final PhysicsCollisionObject collisionObject = object.getCollisionObject();
+            final boolean spawned = known.get(id);
+
+            // Sleeping bodies can't have moved
+            if (spawned && !collisionObject.isActive()) continue;
+
+            quantize(collisionObject);
+
+            if (!spawned) {
+                writeSpawn(object);
+                continue;
+            }
+
+            final int base = id * STRIDE;
+            if (Arrays.equals(states, base, base + STRIDE, quantized, 0, STRIDE)) continue;
+
+            writeKey(id, TRANSFORM);
+            for (int i = 0; i < STRIDE; i++) {
+                putVarInt(active, zigzag(quantized[i] - states[base + i]));
+                states[base + i] = quantized[i];
+            }
+        }
+
+        if (frameOpen) {
+            putVarInt(active, 0);
+            frameOpen = false;
+        }
+
+        if (active.position() > BUFFER_SIZE / 2 || (tick % FLUSH_EVERY_TICKS == 0 && active.position() > 0)) {
+            handOff();
+        }
+    }
+
+    /**
+     * Records that an object was removed. Written at the start of the next frame.
+     */
+    public void onDestroy(@NotNull MinecraftPhysicsObject object) {
+        if (known.get(object.getId())) destroyed.set(object.getId());
+    }
+
+    private void quantize(@NotNull PhysicsCollisionObject object) {
+        object.getPhysicsLocation(location);
+        object.getPhysicsRotation(rotation);
+
+        final float sign = rotation.getW() < 0 ? -1 : 1;
+
+        quantized[0] = Math.round(location.x * POSITION_SCALE);
+        quantized[1] = Math.round(location.y * POSITION_SCALE);
+        quantized[2] = Math.round(location.z * POSITION_SCALE);
+        quantized[3] = Math.round(rotation.getX() * sign * ROTATION_SCALE);
+        quantized[4] = Math.round(rotation.getY() * sign * ROTATION_SCALE);
+        quantized[5] = Math.round(rotation.getZ() * sign * ROTATION_SCALE);
+        quantized[6] = Math.round(rotation.getW() * sign * ROTATION_SCALE);
+    }
+
+    private void writeSpawn(@NotNull MinecraftPhysicsObject object) {
+        final int id = object.getId();
+        final Block block = object instanceof BlockRigidBody blockBody ? blockBody.getBlock() : Block.STONE;
+
+        writeKey(id, SPAWN);
+        putVarInt(active, block.stateId());
+        active.putFloat((float) object.getSize().x());
+        active.putFloat((float) object.getSize().y());
+        active.putFloat((float) object.getSize().z());
+
+        if (states.length < (id + 1) * STRIDE) {
+            states = Arrays.copyOf(states, Math.max(states.length * 2, (id + 1) * STRIDE));
+        }
+
+        final int base = id * STRIDE;
+        for (int i = 0; i < STRIDE; i++) {
+            putVarInt(active, zigzag(quantized[i]));
+            states[base + i] = quantized[i];
+        }
+        known.set(id);
+    }
+
+    private void writeKey(int id, int kind) {
+        if (active.remaining() < MAX_ENTRY_SIZE + 16) handOff();
+
+        if (!frameOpen) {
+            active.put(FRAME);
+            putVarInt(active, tick - lastFrameTick);
+            lastFrameTick = tick;
+            frameOpen = true;
+        }
+        putVarInt(active, (id << 2) | kind);
+    }
+
+    /**
+     * Passes the filled buffer to the writer thread and continues with an empty one.
+     * A frame may span two buffers; the file is a plain concatenation.
+     */
+    private void handOff() {
+        final ByteBuffer full = active.flip();
+
+        ByteBuffer next = freeBuffers.poll();
+        active = next != null ? next : ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        WRITER.execute(() -> {
+            try {
+                append(full);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                freeBuffers.add(full.clear());
+            }
+        });
+    }
+
+    private void append(@NotNull ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (mapped == null || !mapped.hasRemaining()) {
+                mappedStart = written;
+                mapped = channel.map(FileChannel.MapMode.READ_WRITE, mappedStart, MAP_CHUNK);
+            }
+
+            final int length = Math.min(buffer.remaining(), mapped.remaining());
+            mapped.put(mapped.position(), buffer, buffer.position(), length);
+            mapped.position(mapped.position() + length);
+            buffer.position(buffer.position() + length);
+            written += length;
+        }
+    }
+
+    /**
+     * Ends the replay. The remaining data is written and the file trimmed in the background.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+
+        if (frameOpen) putVarInt(active, 0);
+        active.put(END);
+        handOff();
+
+        WRITER.execute(() -> {
+            try (channel) {
+                if (mapped != null) mapped.force();
+                mapped = null;
+                channel.truncate(written);
+            } catch (IOException ignored) {
+                // Some platforms can't truncate a mapped file; the trailing zeroes read as the end of the replay
+            }
+        });
+    }
+}
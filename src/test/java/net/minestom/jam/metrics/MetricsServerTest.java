@@ -0,0 +1,66 @@
+package net.minestom.jam.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsServerTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final Counter counter = registry.register(new Counter("test_events", "Events seen by the test"));
+    private final HttpClient client = HttpClient.newHttpClient();
+    private MetricsServer server;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = new MetricsServer(registry, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    private HttpResponse<String> request(String method) throws Exception {
+        final URI uri = URI.create("http://" + server.getAddress().getHostString() + ":"
+                + server.getAddress().getPort() + "/metrics");
+        return client.send(HttpRequest.newBuilder(uri).method(method, HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void scrapeReturnsTheRegistry() throws Exception {
+        counter.add(3);
+
+        final HttpResponse<String> response = request("GET");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/plain; version=0.0.4"));
+        assertEquals(registry.scrape(), response.body());
+        assertTrue(response.body().contains("# TYPE test_events counter\n"));
+        assertTrue(response.body().contains("test_events_total 3\n"));
+    }
+
+    @Test
+    void scrapeSeesNewValues() throws Exception {
+        assertTrue(request("GET").body().contains("test_events_total 0\n"));
+
+        counter.increment();
+        assertTrue(request("GET").body().contains("test_events_total 1\n"));
+    }
+
+    @Test
+    void onlyGetIsAllowed() throws Exception {
+        assertEquals(405, request("POST").statusCode());
+    }
+}
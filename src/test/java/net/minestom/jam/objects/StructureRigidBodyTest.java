@@ -0,0 +1,62 @@
+package net.minestom.jam.objects;
+
+import com.jme3.math.Vector3f;
+import net.minestom.server.instance.block.Block;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructureRigidBodyTest {
+
+    private static final List<StructureRigidBody.Part> COLUMN = StructureRigidBody.box(0, 0, 0, 1, 5, 1, Block.STONE);
+
+    @Test
+    void boxHasOnePartPerBlock() {
+        assertEquals(5, COLUMN.size());
+        assertEquals(2 * 6 * 3, StructureRigidBody.box(10, 4, -3, 2, 6, 3, Block.STONE).size());
+    }
+
+    @Test
+    void weakHitBreaksTheClosestPartAndSplitsTheColumn() {
+        // On the side of the middle block, so only that block is within the radius
+        final var fracture = StructureRigidBody.split(COLUMN, new Vector3f(0.5f, 2.5f, 1f),
+                StructureRigidBody.FRACTURE_IMPULSE);
+
+        assertEquals(List.of(COLUMN.get(2)), fracture.broken());
+        assertEquals(2, fracture.kept().size());
+        assertEquals(1, fracture.pieces().size());
+        assertEquals(2, fracture.pieces().getFirst().size());
+    }
+
+    @Test
+    void strongerHitBreaksMoreParts() {
+        final var fracture = StructureRigidBody.split(COLUMN, new Vector3f(0.5f, 2.5f, 0.5f),
+                StructureRigidBody.FRACTURE_IMPULSE * 2);
+
+        // Radius 2 from the middle reaches every block
+        assertEquals(5, fracture.broken().size());
+        assertTrue(fracture.kept().isEmpty());
+        assertTrue(fracture.pieces().isEmpty());
+    }
+
+    @Test
+    void hitAtTheTopKeepsTheRestInOnePiece() {
+        final var fracture = StructureRigidBody.split(COLUMN, new Vector3f(0.5f, 5f, 0.5f),
+                StructureRigidBody.FRACTURE_IMPULSE);
+
+        assertEquals(List.of(COLUMN.get(4)), fracture.broken());
+        assertEquals(4, fracture.kept().size());
+        assertTrue(fracture.pieces().isEmpty());
+    }
+
+    @Test
+    void farHitStillBreaksTheClosestPart() {
+        final var fracture = StructureRigidBody.split(COLUMN, new Vector3f(0.5f, -10f, 0.5f),
+                StructureRigidBody.FRACTURE_IMPULSE);
+
+        assertEquals(List.of(COLUMN.getFirst()), fracture.broken());
+        assertEquals(4, fracture.kept().size());
+    }
+}
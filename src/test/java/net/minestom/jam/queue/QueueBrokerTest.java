@@ -0,0 +1,186 @@
+package net.minestom.jam.queue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueBrokerTest {
+
+    private static final long TIMEOUT_MS = 5_000;
+
+    private QueueBroker broker;
+    private BrokerQueueBackend nodeA, nodeB, lobby;
+    private final BlockingQueue<Set<UUID>> matchesA = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Set<UUID>> matchesB = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void start() throws Exception {
+        broker = new QueueBroker(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        broker.start();
+
+        final InetSocketAddress address = broker.getAddress();
+        nodeA = new BrokerQueueBackend(address, "a", true);
+        nodeB = new BrokerQueueBackend(address, "b", true);
+        lobby = new BrokerQueueBackend(address, "lobby", false);
+        nodeA.onRemoteMatch(matchesA::add);
+        nodeB.onRemoteMatch(matchesB::add);
+
+        await(() -> broker.load("a") == 0 && broker.load("b") == 0 && broker.load("lobby") == 0);
+    }
+
+    @AfterEach
+    void stop() {
+        nodeA.close();
+        nodeB.close();
+        lobby.close();
+        broker.close();
+    }
+
+    /**
+     * Waits for the broker to see something, since every node talks to it over its own connection.
+     */
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the broker");
+            Thread.sleep(10);
+        }
+    }
+
+    private static Set<UUID> players() {
+        return Set.of(UUID.randomUUID(), UUID.randomUUID());
+    }
+
+    private void report(int loadA, boolean acceptingA, int loadB, boolean acceptingB) throws InterruptedException {
+        nodeA.reportLoad(loadA, loadA * 2, acceptingA);
+        nodeB.reportLoad(loadB, loadB * 2, acceptingB);
+        await(() -> broker.load("a") == loadA && broker.isAccepting("a") == acceptingA
+                && broker.load("b") == loadB && broker.isAccepting("b") == acceptingB);
+    }
+
+    @Test
+    void placesOnTheLeastLoadedNodeAndSendsItTheMatch() throws Exception {
+        report(3, true, 1, true);
+
+        final Set<UUID> players = players();
+        assertEquals("b", lobby.place(players).get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(players, matchesB.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(matchesA.isEmpty());
+
+        // The match counts towards b until its next report
+        assertEquals(2, broker.load("b"));
+    }
+
+    @Test
+    void placingOnTheRequesterPlaysLocally() throws Exception {
+        report(3, true, 1, true);
+
+        assertNull(nodeB.place(players()).get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertNull(matchesB.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void skipsNodesThatAreNotAccepting() throws Exception {
+        report(3, true, 1, false);
+
+        final Set<UUID> players = players();
+        assertEquals("a", lobby.place(players).get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(players, matchesA.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(matchesB.isEmpty());
+    }
+
+    @Test
+    void answersWithNoServerWhenNobodyIsAccepting() throws Exception {
+        report(3, false, 1, false);
+
+        assertNull(lobby.place(players()).get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(matchesA.isEmpty());
+        assertTrue(matchesB.isEmpty());
+    }
+
+    @Test
+    void brokerSkipsMalformedLines() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), broker.getAddress().getPort())) {
+            final PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            out.println("HELLO");
+            out.println("HELLO junk true");
+            out.println("LOAD many 0 true");
+            out.println("PLACE");
+            out.println("LOAD 5 10 true");
+
+            // The connection outlived the garbage
+            await(() -> broker.load("junk") == 5);
+        }
+
+        report(3, true, 1, true);
+        final Set<UUID> players = players();
+        assertEquals("b", lobby.place(players).get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(players, matchesB.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void backendSkipsMalformedLines() throws Exception {
+        try (ServerSocket fake = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final BrokerQueueBackend node = new BrokerQueueBackend(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), fake.getLocalPort()), "node", false);
+            try (Socket socket = fake.accept()) {
+                final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                final PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+                assertTrue(in.readLine().startsWith("HELLO node"));
+                await(node::isConnected);
+
+                final var placement = node.place(players());
+                String line;
+                do {
+                    line = in.readLine();
+                } while (!line.startsWith("PLACE "));
+                final String id = line.split(" ")[1];
+
+                out.println("PLACED");
+                out.println("PLACED nope remote");
+                out.println("MATCH not-a-uuid");
+                out.println("PLACED " + id + " remote");
+                assertEquals("remote", placement.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+                assertTrue(node.isConnected());
+            } finally {
+                node.close();
+            }
+        }
+    }
+
+    @Test
+    void playsLocallyWithoutABroker() throws Exception {
+        final int port;
+        try (ServerSocket unused = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = unused.getLocalPort();
+        }
+
+        final BrokerQueueBackend offline = new BrokerQueueBackend(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), "offline", true);
+        try {
+            // Answered right away rather than after the placement timeout
+            assertNull(offline.place(players()).getNow(null));
+            assertTrue(offline.place(players()).isDone());
+            assertFalse(offline.isConnected());
+        } finally {
+            offline.close();
+        }
+    }
+}